@@ -0,0 +1,23 @@
+package bench;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * BenchmarkRunner.java
+ *
+ * Runs the whole suite with the GC profiler attached, so every result also reports
+ * allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ *
+ * Usage: java -cp target/benchmarks.jar bench.BenchmarkRunner [include regex]
+ */
+public class BenchmarkRunner{
+    public static void main(String[] args) throws RunnerException{
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "bench\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,106 @@
+package bench;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Core.java
+ *
+ * Bridges the JMH benchmarks to the Java core.
+ *
+ * JMH does not allow benchmark classes in the default package, while the core classes
+ * (Physics, MaterialLibrary, ShieldingCalculator, ...) live there and cannot be imported.
+ * The static final method handles below are constant-folded by the JIT, so calls through
+ * them cost the same as direct calls once compiled.
+ */
+final class Core{
+    static final Class<?> MATERIAL = load("Material");
+    static final Class<?> LAYER = load("Layer");
+
+    //Physics.interpolate(double, double[], double[]) -> double
+    static final MethodHandle INTERPOLATE = find("Physics", "interpolate",
+            MethodType.methodType(double.class, double.class, double[].class, double[].class));
+    //Physics.bracketIndex(double, double[]) -> int
+    static final MethodHandle BRACKET_INDEX = find("Physics", "bracketIndex",
+            MethodType.methodType(int.class, double.class, double[].class));
+    //Physics.getMu(double, Material) -> double, seen as (double, Object) -> double
+    static final MethodHandle GET_MU = find("Physics", "getMu",
+            MethodType.methodType(double.class, double.class, MATERIAL))
+            .asType(MethodType.methodType(double.class, double.class, Object.class));
+    //MaterialLibrary.getMaterial(int) -> Material, seen as (int) -> Object
+    static final MethodHandle GET_MATERIAL = find("MaterialLibrary", "getMaterial",
+            MethodType.methodType(MATERIAL, int.class))
+            .asType(MethodType.methodType(Object.class, int.class));
+    //MaterialLibrary.getMaterial(String) -> Material, seen as (String) -> Object
+    static final MethodHandle GET_MATERIAL_BY_KEY = find("MaterialLibrary", "getMaterial",
+            MethodType.methodType(MATERIAL, String.class))
+            .asType(MethodType.methodType(Object.class, String.class));
+    //MaterialLibrary.createLead() -> Material, seen as () -> Object
+    static final MethodHandle CREATE_LEAD = find("MaterialLibrary", "createLead",
+            MethodType.methodType(MATERIAL))
+            .asType(MethodType.methodType(Object.class));
+    //ShieldingCalculator.computeTransmission(double, ArrayList<Layer>) -> double
+    static final MethodHandle COMPUTE_TRANSMISSION = find("ShieldingCalculator", "computeTransmission",
+            MethodType.methodType(double.class, double.class, ArrayList.class));
+
+    private static final MethodHandle NEW_LAYER;
+
+    static{
+        try{
+            NEW_LAYER = MethodHandles.lookup().findConstructor(LAYER,
+                    MethodType.methodType(void.class, MATERIAL, double.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, double.class));
+        }catch(ReflectiveOperationException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Core(){
+    }
+
+    //Returns the shared library material for a menu index
+    static Object material(int choice){
+        try{
+            return (Object) GET_MATERIAL.invokeExact(choice);
+        }catch(Throwable t){
+            throw new IllegalStateException(t);
+        }
+    }
+
+    //Builds a Layer
+    static Object layer(Object material, double thickness){
+        try{
+            return (Object) NEW_LAYER.invokeExact(material, thickness);
+        }catch(Throwable t){
+            throw new IllegalStateException(t);
+        }
+    }
+
+    //Reads a package-private double[] field of a Material (energy, muOverP, muPhotoOverP, ...)
+    static double[] array(Object material, String field){
+        try{
+            Field f = MATERIAL.getDeclaredField(field);
+            f.setAccessible(true);
+            return (double[]) f.get(material);
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Class<?> load(String name){
+        try{
+            return Class.forName(name);
+        }catch(ClassNotFoundException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle find(String owner, String name, MethodType type){
+        try{
+            return MethodHandles.publicLookup().findStatic(load(owner), name, type);
+        }catch(ReflectiveOperationException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
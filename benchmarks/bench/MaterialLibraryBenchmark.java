@@ -0,0 +1,46 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * MaterialLibraryBenchmark.java
+ *
+ * Benchmarks material resolution: registry lookups by menu index and by key, against
+ * building Lead from its factory (the cost every lookup used to pay).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MaterialLibraryBenchmark{
+
+    @Param({"1", "2", "7", "13"})
+    int choice;
+
+    String key;
+
+    @Setup
+    public void setup(){
+        String[] keys = {"lead", "concrete_ordinary", "concrete_barite", "aluminum", "water", "tungsten",
+                "bismuth", "copper", "tin", "polyethylene", "graphite", "leaded_glass", "depleted_uranium"};
+        key = keys[choice - 1];
+    }
+
+    @Benchmark
+    public Object getMaterial() throws Throwable{
+        return (Object) Core.GET_MATERIAL.invokeExact(choice);
+    }
+
+    @Benchmark
+    public Object getMaterialByKey() throws Throwable{
+        return (Object) Core.GET_MATERIAL_BY_KEY.invokeExact(key);
+    }
+
+    @Benchmark
+    public Object createLead() throws Throwable{
+        return (Object) Core.CREATE_LEAD.invokeExact();
+    }
+}
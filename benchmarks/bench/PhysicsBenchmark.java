@@ -0,0 +1,66 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * PhysicsBenchmark.java
+ *
+ * Benchmarks the Physics hot paths: interpolate, bracketIndex and getMu.
+ *
+ * Energies include points either side of the Lead K edge (0.088 MeV) and L edges
+ * (13.04-15.86 keV), a mid-table point (Cs-137) and a high-energy point near the end of
+ * the table, where the linear bracket scan is longest. Lead carries photoelectric,
+ * Compton and pair components; Concrete (Ordinary) carries total attenuation only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhysicsBenchmark{
+
+    @Param({"0.0152", "0.01553", "0.0879", "0.0881", "0.6617", "9.5"})
+    double energy;
+
+    Object lead;
+    Object concrete;
+    double[] leadEnergy;
+    double[] leadPhoto;
+    double[] leadCompton;
+
+    @Setup
+    public void setup(){
+        lead = Core.material(1);
+        concrete = Core.material(2);
+        leadEnergy = Core.array(lead, "energy");
+        leadPhoto = Core.array(lead, "muPhotoOverP");
+        leadCompton = Core.array(lead, "muComptonOverP");
+    }
+
+    @Benchmark
+    public double interpolateLogLog() throws Throwable{
+        return (double) Core.INTERPOLATE.invokeExact(energy, leadEnergy, leadCompton);
+    }
+
+    @Benchmark
+    public double interpolatePhotoelectric() throws Throwable{
+        return (double) Core.INTERPOLATE.invokeExact(energy, leadEnergy, leadPhoto);
+    }
+
+    @Benchmark
+    public int bracketIndex() throws Throwable{
+        return (int) Core.BRACKET_INDEX.invokeExact(energy, leadEnergy);
+    }
+
+    @Benchmark
+    public double getMuComponents() throws Throwable{
+        return (double) Core.GET_MU.invokeExact(energy, lead);
+    }
+
+    @Benchmark
+    public double getMuTotalOnly() throws Throwable{
+        return (double) Core.GET_MU.invokeExact(energy, concrete);
+    }
+}
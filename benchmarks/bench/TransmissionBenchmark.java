@@ -0,0 +1,41 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * TransmissionBenchmark.java
+ *
+ * Benchmarks ShieldingCalculator.computeTransmission over stacks of 1-20 layers.
+ * Stacks cycle through all library materials so component and total-only tables are mixed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransmissionBenchmark{
+
+    @Param({"1", "2", "5", "10", "20"})
+    int layers;
+
+    @Param({"0.0881", "0.6617", "1.25"})
+    double energy;
+
+    ArrayList<Object> stack;
+
+    @Setup
+    public void setup(){
+        stack = new ArrayList<>();
+        for(int i = 0; i < layers; i++){
+            stack.add(Core.layer(Core.material(1 + i%13), 0.5));
+        }
+    }
+
+    @Benchmark
+    public double computeTransmission() throws Throwable{
+        return (double) Core.COMPUTE_TRANSMISSION.invokeExact(energy, stack);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * AttenuationTable.java
+ *
+ * Compiled form of a Material's attenuation data for fast repeated mu(E) evaluation.
+ *
+ * The table is built once from a Material and stores, for every non-degenerate
+ * energy segment, the precomputed ln(E), ln(mu/p) and their segment differences.
+ * Energies are located by binary search instead of a linear scan.
+ *
+ * Results are identical to Physics.interpolate:
+ * - Duplicate K/L-edge energies are skipped and the lower segment is used at a shared endpoint
+ * - Log-log interpolation uses the same operation order on the same logarithms
+ * - Segments with a zero or negative value fall back to linear interpolation
+ *
+ * Component materials keep one segment table per component (photoelectric, compton, pair)
+ * because the sum of log-log interpolants is not itself log-log. All components share
+ * one bracket search and one Math.log(E). Components can also be read individually.
+ */
+public final class AttenuationTable{
+    //Material name, density (g/cm^3) and tabulated range (MeV)
+    final String name;
+    final double density;
+    final double minEnergy;
+    final double maxEnergy;
+
+    //Per-segment energy bounds, ln(E1) and ln(E2)-ln(E1)
+    private final double[] segLow;
+    private final double[] segHigh;
+    private final double[] lnE1;
+    private final double[] dLnE;
+    private final double[] dE;
+
+    //Per-component, per-segment values: V1, V2-V1, ln(V1), ln(V2)-ln(V1)
+    private final double[][] v1;
+    private final double[][] dV;
+    private final double[][] lnV1;
+    private final double[][] dLnV;
+    private final boolean[][] linear;
+
+    //Compiles a table from the material's component arrays or, if absent, its total array
+    public AttenuationTable(Material mat){
+        double[][] values;
+        if(mat.muPhotoOverP != null && mat.muComptonOverP != null && mat.muPairOverP != null){
+            values = new double[][]{mat.muPhotoOverP, mat.muComptonOverP, mat.muPairOverP};
+        }else if(mat.muOverP != null){
+            values = new double[][]{mat.muOverP};
+        }else{
+            throw new IllegalStateException("Material has no attenuation data.");
+        }
+        double[] energy = mat.energy;
+        for(int i = 0; i < energy.length - 1; i++){
+            if(energy[i + 1] < energy[i]){
+                throw new IllegalArgumentException("Energy grid of " + mat.name + " is not sorted at index " + (i + 1));
+            }
+        }
+        //Count non-degenerate segments (duplicate edge energies are skipped)
+        int n = 0;
+        for(int i = 0; i < energy.length - 1; i++){
+            if(energy[i] != energy[i + 1]) n++;
+        }
+        if(n == 0){
+            throw new IllegalArgumentException("Energy grid of " + mat.name + " needs at least two distinct energies");
+        }
+        this.name = mat.name;
+        this.density = mat.density;
+        this.minEnergy = energy[0];
+        this.maxEnergy = energy[energy.length - 1];
+        segLow = new double[n];
+        segHigh = new double[n];
+        lnE1 = new double[n];
+        dLnE = new double[n];
+        dE = new double[n];
+        v1 = new double[values.length][n];
+        dV = new double[values.length][n];
+        lnV1 = new double[values.length][n];
+        dLnV = new double[values.length][n];
+        linear = new boolean[values.length][n];
+
+        int s = 0;
+        for(int i = 0; i < energy.length - 1; i++){
+            if(energy[i] == energy[i + 1]) continue;
+            double E1 = energy[i];
+            double E2 = energy[i + 1];
+            segLow[s] = E1;
+            segHigh[s] = E2;
+            dE[s] = E2 - E1;
+            double l1 = Math.log(E1);
+            lnE1[s] = l1;
+            dLnE[s] = Math.log(E2) - l1;
+            for(int c = 0; c < values.length; c++){
+                double V1 = values[c][i];
+                double V2 = values[c][i + 1];
+                v1[c][s] = V1;
+                dV[c][s] = V2 - V1;
+                if(V1 <= 0 || V2 <= 0){
+                    linear[c][s] = true;
+                }else{
+                    double lv1 = Math.log(V1);
+                    lnV1[c][s] = lv1;
+                    dLnV[c][s] = Math.log(V2) - lv1;
+                }
+            }
+            s++;
+        }
+    }
+
+    //Returns the compiled table for a material, compiling and caching it on first use
+    public static AttenuationTable of(Material mat){
+        AttenuationTable table = mat.table;
+        if(table == null){
+            table = new AttenuationTable(mat);
+            mat.table = table;
+        }
+        return table;
+    }
+
+    //Number of non-degenerate energy segments
+    public int segmentCount(){
+        return segLow.length;
+    }
+
+    //Lower energy bound (MeV) of a segment
+    public double segmentStart(int s){
+        return segLow[s];
+    }
+
+    //Finds the segment containing E by binary search. Returns -1 if E is outside the range.
+    public int segmentOf(double E){
+        if(!(E >= minEnergy && E <= maxEnergy)) return -1;
+        //Smallest segment whose upper bound is >= E (lower segment wins at shared endpoints)
+        int lo = 0;
+        int hi = segHigh.length - 1;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(segHigh[mid] >= E){
+                hi = mid;
+            }else{
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    //Finds the segment containing E starting from a previous segment index.
+    //Walks forward from the hint, so it is O(1) amortized for ascending energies.
+    public int segmentOf(double E, int hint){
+        if(hint < 0 || hint >= segLow.length || E < segLow[hint]) return segmentOf(E);
+        if(!(E <= maxEnergy)) return -1;
+        int s = hint;
+        while(segHigh[s] < E) s++;
+        //Move back to the lowest segment sharing this endpoint
+        while(s > 0 && segHigh[s - 1] >= E) s--;
+        return s;
+    }
+
+    //Mass attenuation coefficient (cm^2/g) at E
+    public double muOverP(double E){
+        int s = segmentOf(E);
+        if(s == -1) throw outOfBounds(E);
+        return muOverP(E, s);
+    }
+
+    //Mass attenuation coefficient (cm^2/g) at E within a known segment
+    public double muOverP(double E, int s){
+        double frac = Double.NaN;
+        double lnFrac = Double.NaN;
+        double sum = 0;
+        for(int c = 0; c < v1.length; c++){
+            double value;
+            if(linear[c][s]){
+                if(EngineMetrics.enabled) EngineMetrics.LINEAR_FALLBACKS.increment();
+                if(Double.isNaN(frac)) frac = (E - segLow[s])/dE[s];
+                value = v1[c][s] + frac*dV[c][s];
+            }else{
+                if(Double.isNaN(lnFrac)) lnFrac = (Math.log(E) - lnE1[s])/dLnE[s];
+                value = Math.exp(lnV1[c][s] + lnFrac*dLnV[c][s]);
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    //Number of tabulated components: 3 (photoelectric, compton, pair) or 1 (total only)
+    public int componentCount(){
+        return v1.length;
+    }
+
+    //Mass attenuation coefficient (cm^2/g) of one component at E within a known segment
+    public double componentMuOverP(double E, int s, int component){
+        if(linear[component][s]){
+            if(EngineMetrics.enabled) EngineMetrics.LINEAR_FALLBACKS.increment();
+            return v1[component][s] + ((E - segLow[s])/dE[s])*dV[component][s];
+        }
+        return Math.exp(lnV1[component][s] + ((Math.log(E) - lnE1[s])/dLnE[s])*dLnV[component][s]);
+    }
+
+    //Linear attenuation coefficient (1/cm) at E
+    public double mu(double E){
+        return muOverP(E)*density;
+    }
+
+    //Linear attenuation coefficient (1/cm) at E within a known segment
+    public double mu(double E, int s){
+        return muOverP(E, s)*density;
+    }
+
+    IllegalArgumentException outOfBounds(double E){
+        if(EngineMetrics.enabled) EngineMetrics.OUT_OF_BOUNDS.increment();
+        return new IllegalArgumentException("Energy " + E + " MeV out of bounds ["
+                + minEnergy + ", " + maxEnergy + "]");
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * BatchProcessor.java
+ *
+ * Non-interactive batch mode: streams shielding configurations in, one per line,
+ * and streams results out through a buffered writer. Memory use does not grow with
+ * the number of lines.
+ *
+ * CSV input (blank lines, '#' comments and a header on the first other line are skipped):
+ *   energy_mev,source_strength,distance_cm,material1,thickness1_cm[,material2,thickness2_cm...]
+ *
+ * JSONL input:
+ *   {"energy": 0.6617, "source_strength": 3.7e10, "distance": 100,
+ *    "layers": [{"material": "lead", "thickness": 5.0}]}
+ *
+ * Materials are MaterialLibrary menu indices (1-13) or keys such as "lead".
+ * Energies and distances must be finite and positive, source strengths and thicknesses
+ * finite and non-negative. Results are written in the same format as the input. Lines that
+ * fail, including unparsable lines after the header, are reported on the error stream with
+ * their line number, counted as failed and skipped.
+ */
+public class BatchProcessor{
+
+    //Supported line formats
+    public enum Format{ CSV, JSONL }
+
+    private static final String CSV_HEADER = "line,energy_mev,source_strength,distance_cm,total_thickness_cm,transmission,flux";
+
+    //Counts of processed and failed lines
+    public static final class Summary{
+        final long processed;
+        final long failed;
+
+        Summary(long processed, long failed){
+            this.processed = processed;
+            this.failed = failed;
+        }
+
+        public long processed(){
+            return processed;
+        }
+
+        public long failed(){
+            return failed;
+        }
+    }
+
+    //Chooses a format from a file name, defaulting to CSV
+    public static Format formatFor(String fileName){
+        return fileName != null && fileName.toLowerCase().endsWith(".jsonl") ? Format.JSONL : Format.CSV;
+    }
+
+    //Streams configurations from in to out. Errors for individual lines go to err.
+    public static Summary run(BufferedReader in, Writer out, PrintStream err, Format format) throws IOException{
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out, 1 << 16);
+        StringBuilder row = new StringBuilder(256);
+        ArrayList<Layer> layers = new ArrayList<>();
+        double[] params = new double[3];
+        long lineNumber = 0;
+        long processed = 0;
+        long failed = 0;
+        boolean first = true;
+        if(format == Format.CSV){
+            writer.write(CSV_HEADER);
+            writer.newLine();
+        }
+        String line;
+        while((line = in.readLine()) != null){
+            lineNumber++;
+            String trimmed = line.trim();
+            if(trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            //Only the first content line may be a CSV header
+            boolean header = first && format == Format.CSV && !isNumber(trimmed);
+            first = false;
+            if(header) continue;
+            try{
+                layers.clear();
+                if(format == Format.CSV){
+                    parseCsv(trimmed, params, layers);
+                }else{
+                    parseJson(trimmed, params, layers);
+                }
+                double energy = params[0];
+                double sourceStrength = params[1];
+                double distance = params[2];
+                if(!(energy > 0) || Double.isInfinite(energy)){
+                    throw new IllegalArgumentException("Photon energy must be finite and greater than zero.");
+                }
+                if(!(sourceStrength >= 0) || Double.isInfinite(sourceStrength)){
+                    throw new IllegalArgumentException("Source strength must be finite and non-negative.");
+                }
+                if(!(distance > 0) || Double.isInfinite(distance)){
+                    throw new IllegalArgumentException("Detector distance must be finite and greater than zero.");
+                }
+                double transmission = ShieldingCalculator.computeTransmission(energy, layers);
+                double flux = ShieldingCalculator.computeFlux(transmission, distance, sourceStrength);
+                double totalThickness = 0;
+                for(Layer layer: layers){
+                    totalThickness += layer.thickness;
+                }
+                row.setLength(0);
+                if(format == Format.CSV){
+                    row.append(lineNumber).append(',').append(energy).append(',').append(sourceStrength).append(',')
+                            .append(distance).append(',').append(totalThickness).append(',')
+                            .append(transmission).append(',').append(flux);
+                }else{
+                    row.append("{\"line\":").append(lineNumber)
+                            .append(",\"energy\":").append(energy)
+                            .append(",\"source_strength\":").append(sourceStrength)
+                            .append(",\"distance\":").append(distance)
+                            .append(",\"total_thickness\":").append(totalThickness)
+                            .append(",\"transmission\":").append(transmission)
+                            .append(",\"flux\":").append(flux).append('}');
+                }
+                writer.append(row);
+                writer.newLine();
+                processed++;
+            }catch(RuntimeException e){
+                failed++;
+                err.println("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        writer.flush();
+        return new Summary(processed, failed);
+    }
+
+    //Parses one CSV configuration
+    private static void parseCsv(String line, double[] params, ArrayList<Layer> layers){
+        String[] fields = line.split(",");
+        if(fields.length < 3 || (fields.length - 3)%2 != 0){
+            throw new IllegalArgumentException("Expected energy,source_strength,distance followed by material,thickness pairs.");
+        }
+        for(int i = 0; i < 3; i++){
+            params[i] = parseNumber(fields[i].trim());
+        }
+        for(int i = 3; i < fields.length; i += 2){
+            layers.add(new Layer(resolveMaterial(fields[i].trim()), parseThickness(fields[i + 1].trim())));
+        }
+    }
+
+    //Parses one JSONL configuration
+    @SuppressWarnings("unchecked")
+    private static void parseJson(String line, double[] params, ArrayList<Layer> layers){
+        Map<String, Object> config = Json.parseObject(line);
+        params[0] = number(config, "energy");
+        params[1] = number(config, "source_strength");
+        params[2] = number(config, "distance");
+        Object list = config.get("layers");
+        if(!(list instanceof List)){
+            throw new IllegalArgumentException("Missing \"layers\" array.");
+        }
+        for(Object item: (List<Object>) list){
+            if(!(item instanceof Map)){
+                throw new IllegalArgumentException("Each layer must be an object.");
+            }
+            Map<String, Object> layer = (Map<String, Object>) item;
+            Object material = layer.get("material");
+            String key = material instanceof Double ? menuIndex((Double) material) : String.valueOf(material);
+            layers.add(new Layer(resolveMaterial(key), checkThickness(number(layer, "thickness"))));
+        }
+    }
+
+    //Resolves a menu index or library key to a Material
+    static Material resolveMaterial(String text){
+        Material mat = isNumber(text) ? MaterialLibrary.getMaterial(Integer.parseInt(text)) : MaterialLibrary.getMaterial(text);
+        if(mat == null){
+            throw new IllegalArgumentException("Invalid material choice: " + text);
+        }
+        return mat;
+    }
+
+    private static double parseThickness(String text){
+        return checkThickness(parseNumber(text));
+    }
+
+    private static double parseNumber(String text){
+        try{
+            return Double.parseDouble(text);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Invalid number: " + text);
+        }
+    }
+
+    private static double checkThickness(double thickness){
+        if(!(thickness >= 0) || Double.isInfinite(thickness)){
+            throw new IllegalArgumentException("Thickness must be finite and non-negative.");
+        }
+        return thickness;
+    }
+
+    //JSON numbers are doubles; a menu index must be integral
+    private static String menuIndex(double value){
+        if(value != Math.rint(value) || Math.abs(value) > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Invalid material choice: " + value);
+        }
+        return String.valueOf((int) value);
+    }
+
+    private static double number(Map<String, Object> map, String key){
+        Object value = map.get(key);
+        if(!(value instanceof Double)){
+            throw new IllegalArgumentException("Missing or non-numeric \"" + key + "\".");
+        }
+        return (Double) value;
+    }
+
+    private static boolean isNumber(String text){
+        if(text.isEmpty()) return false;
+        char c = text.charAt(0);
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+';
+    }
+}
@@ -0,0 +1,227 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Buildup.java
+ *
+ * G-P exposure buildup factors for broad-beam transmission.
+ *
+ * Coefficients come from BuildupLibrary and are linearly interpolated in energy,
+ * as in buildup.py. Interpolated coefficients are cached per (material, energy) together
+ * with the constants of the G-P formula, so repeated B(mfp) evaluations do no table search.
+ * The material's table is resolved by key once and then kept on the Material instance, and
+ * cached energies are found by binary search in an immutable snapshot, so a cached lookup
+ * neither searches the material registry nor allocates.
+ *
+ * Multilayer stacks use Broder's approximation, with layers ordered from the source outward:
+ *   B = sum_n B_n(mfp_1 + ... + mfp_n) - sum_{n>=2} B_n(mfp_1 + ... + mfp_{n-1})
+ * For a single layer this reduces to the homogeneous G-P factor.
+ *
+ * The ANS-6.4.3 data are tabulated up to 40 mean free paths; larger values are rejected
+ * instead of extrapolated.
+ */
+public class Buildup{
+
+    //Largest supported number of mean free paths
+    public static final double MAX_MFP = 40.0;
+
+    //Maximum cached energies per material; beyond this coefficients are interpolated without caching
+    private static final int MAX_CACHED_ENERGIES = 4096;
+
+    private static final double TANH_MINUS_2 = Math.tanh(-2.0);
+
+    //Interpolated coefficients per material key
+    private static final ConcurrentHashMap<String, Table> TABLES = new ConcurrentHashMap<>();
+
+    //G-P coefficients at one energy, with the formula constants precomputed
+    public static final class Coefficients{
+        final double energy;
+        final double b;
+        final double c;
+        final double a;
+        final double xk;
+        final double d;
+        private final double invXk;
+        private final double dScale;
+
+        Coefficients(double energy, double b, double c, double a, double xk, double d){
+            if(xk <= 0){
+                throw new IllegalArgumentException("G-P coefficient xk must be greater than zero.");
+            }
+            this.energy = energy;
+            this.b = b;
+            this.c = c;
+            this.a = a;
+            this.xk = xk;
+            this.d = d;
+            this.invXk = 1.0/xk;
+            this.dScale = d/(1.0 - TANH_MINUS_2);
+        }
+
+        //Buildup factor at the given number of mean free paths
+        public double factor(double mfp){
+            if(mfp < 0){
+                throw new IllegalArgumentException("Mean free paths cannot be negative.");
+            }
+            if(mfp > MAX_MFP){
+                throw new IllegalArgumentException("G-P buildup is only supported up to " + MAX_MFP
+                        + " mean free paths. Requested value: " + mfp + " mean free paths.");
+            }
+            if(mfp == 0){
+                return 1.0;
+            }
+            //K is the intermediate G-P fitting value used in the buildup equation
+            double k = c*Math.pow(mfp, a) + dScale*(Math.tanh(mfp*invXk - 2.0) - TANH_MINUS_2);
+            if(k <= 0){
+                throw new IllegalStateException("G-P calculation produced a non-positive K value: " + k);
+            }
+            //If K is too close to 1, use the limiting form to avoid division by zero
+            if(Math.abs(k - 1.0) < 1e-12){
+                return 1.0 + (b - 1.0)*mfp;
+            }
+            double factor = 1.0 + ((b - 1.0)/(k - 1.0))*(Math.pow(k, mfp) - 1.0);
+            if(Double.isInfinite(factor)){
+                throw new IllegalStateException("G-P buildup calculation overflowed.");
+            }
+            return factor;
+        }
+    }
+
+    //Returns true if G-P data exist for the material
+    public static boolean supports(Material mat){
+        return resolve(mat).rows != null;
+    }
+
+    //Returns the (cached) G-P coefficients for a material at energy E in MeV
+    public static Coefficients coefficients(Material mat, double E){
+        return table(mat).at(E);
+    }
+
+    //Buildup factor for a single homogeneous layer at energy E and the given mean free paths
+    public static double factor(Material mat, double E, double mfp){
+        return coefficients(mat, E).factor(mfp);
+    }
+
+    //Buildup factor for a stack of layers (ordered from the source outward) using Broder's approximation
+    public static double multilayerFactor(double E, ArrayList<Layer> layers){
+        double factor = 0;
+        double cumulativeMfp = 0;
+        boolean first = true;
+        for(Layer layer: layers){
+            if(layer.thickness == 0) continue;
+            Coefficients coefficients = coefficients(layer.material, E);
+            if(!first){
+                factor -= coefficients.factor(cumulativeMfp);
+            }
+            cumulativeMfp += Physics.getMu(E, layer.material)*layer.thickness;
+            factor += coefficients.factor(cumulativeMfp);
+            first = false;
+        }
+        return first ? 1.0 : factor;
+    }
+
+    private static Table table(Material mat){
+        Table table = resolve(mat);
+        if(table.rows == null){
+            throw new IllegalArgumentException("G-P buildup mode does not currently support " + mat.name + ".");
+        }
+        return table;
+    }
+
+    //Table of the material's key, kept on the instance after the first lookup
+    private static Table resolve(Material mat){
+        Table table = mat.buildup;
+        if(table == null){
+            String key = MaterialLibrary.getKey(mat);
+            table = key == null ? UNSUPPORTED : TABLES.computeIfAbsent(key, k -> {
+                double[][] rows = BuildupLibrary.getCoefficients(k);
+                return rows == null ? UNSUPPORTED : new Table(rows);
+            });
+            //Tables are safely published (final fields), so a racing duplicate assignment is harmless
+            mat.buildup = table;
+        }
+        return table;
+    }
+
+    //Shared marker for materials without G-P data
+    private static final Table UNSUPPORTED = new Table(null);
+
+    //G-P table for one material with a per-energy cache of interpolated coefficients
+    static final class Table{
+        private final double[][] rows;
+        //Cached energies in ascending order and their coefficients; replaced, never modified
+        private volatile Snapshot cache = new Snapshot(new double[0], new Coefficients[0]);
+
+        Table(double[][] rows){
+            this.rows = rows;
+        }
+
+        Coefficients at(double E){
+            Snapshot snapshot = cache;
+            int i = Arrays.binarySearch(snapshot.energies, E);
+            if(i >= 0){
+                return snapshot.values[i];
+            }
+            Coefficients coefficients = interpolate(E);
+            if(snapshot.energies.length < MAX_CACHED_ENERGIES){
+                insert(coefficients);
+            }
+            return coefficients;
+        }
+
+        //Copy-on-write insert; runs once per new energy
+        private synchronized void insert(Coefficients coefficients){
+            Snapshot snapshot = cache;
+            int i = Arrays.binarySearch(snapshot.energies, coefficients.energy);
+            if(i >= 0 || snapshot.energies.length >= MAX_CACHED_ENERGIES) return;
+            int at = -i - 1;
+            int n = snapshot.energies.length;
+            double[] energies = new double[n + 1];
+            Coefficients[] values = new Coefficients[n + 1];
+            System.arraycopy(snapshot.energies, 0, energies, 0, at);
+            System.arraycopy(snapshot.values, 0, values, 0, at);
+            energies[at] = coefficients.energy;
+            values[at] = coefficients;
+            System.arraycopy(snapshot.energies, at, energies, at + 1, n - at);
+            System.arraycopy(snapshot.values, at, values, at + 1, n - at);
+            cache = new Snapshot(energies, values);
+        }
+
+        //Returns exact or linearly interpolated coefficients at E
+        private Coefficients interpolate(double E){
+            if(E <= 0){
+                throw new IllegalArgumentException("Photon energy must be greater than zero.");
+            }
+            for(double[] row: rows){
+                if(row[0] == E){
+                    return new Coefficients(E, row[1], row[2], row[3], row[4], row[5]);
+                }
+            }
+            for(int i = 0; i < rows.length - 1; i++){
+                double[] lower = rows[i];
+                double[] upper = rows[i + 1];
+                if(lower[0] <= E && E <= upper[0]){
+                    double f = (E - lower[0])/(upper[0] - lower[0]);
+                    return new Coefficients(E,
+                            lower[1] + f*(upper[1] - lower[1]),
+                            lower[2] + f*(upper[2] - lower[2]),
+                            lower[3] + f*(upper[3] - lower[3]),
+                            lower[4] + f*(upper[4] - lower[4]),
+                            lower[5] + f*(upper[5] - lower[5]));
+                }
+            }
+            throw new IllegalArgumentException("Requested energy " + E + " MeV is outside the G-P coefficient data range.");
+        }
+    }
+
+    //Immutable sorted energy cache
+    private static final class Snapshot{
+        final double[] energies;
+        final Coefficients[] values;
+
+        Snapshot(double[] energies, Coefficients[] values){
+            this.energies = energies;
+            this.values = values;
+        }
+    }
+}
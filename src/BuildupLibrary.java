@@ -0,0 +1,231 @@
+/**
+ * BuildupLibrary.java
+ *
+ * Provides G-P fitting coefficients for gamma-ray exposure buildup factors.
+ *
+ * Each row is {energy (MeV), b, c, a, xk, d}, ordered by energy.
+ * Tables are keyed by the MaterialLibrary string keys and match buildup_library.py.
+ *
+ * Source:
+ *  - ORNL gamma-ray buildup factor data for point kernel calculations: ANS-6.4.3 standard reference data
+ */
+public class BuildupLibrary{
+
+    //Returns the G-P coefficient rows for a material key, or null if the material has no buildup data
+    public static double[][] getCoefficients(String key){
+        if(key == null){
+            return null;
+        }
+        switch(key){
+            case "lead": return gpLead();
+            case "aluminum": return gpAluminum();
+            case "concrete_ordinary": return gpConcreteO();
+            case "water": return gpWater();
+            case "tungsten": return gpTungsten();
+            case "copper": return gpCopper();
+            case "tin": return gpTin();
+            default: return null;
+        }
+    }
+
+    private static double[][] gpLead(){
+        return new double[][]{
+                {0.03, 1.003, 0.506, 0.167, 14.21, -0.095},
+                {0.04, 1.007, 0.414, 0.227, 13.71, -0.137},
+                {0.05, 1.013, 0.368, 0.273, 13.99, -0.1844},
+                {0.06, 1.02, 0.413, 0.226, 13.73, -0.1353},
+                {0.08, 1.044, 0.403, 0.227, 13.24, -0.1318},
+                {0.1, 2.014, 1.393, 0.083, 20.93, -0.0912},
+                {0.15, 1.783, 0.318, 0.31, 26.45, -0.1233},
+                {0.2, 1.588, 0.097, 0.441, 14.49, -0.1076},
+                {0.3, 1.494, 0.183, 0.421, 12.8, -0.2485},
+                {0.4, 1.237, 0.552, 0.134, 15.25, -0.0504},
+                {0.5, 1.332, 0.59, 0.127, 14.62, -0.0572},
+                {0.6, 1.424, 0.621, 0.113, 13.77, -0.0478},
+                {0.8, 1.533, 0.682, 0.094, 14.43, -0.0455},
+                {1.0, 1.589, 0.744, 0.076, 14.76, -0.0406},
+                {1.5, 1.656, 0.778, 0.069, 13.61, -0.0452},
+                {2.0, 1.67, 0.785, 0.079, 13.58, -0.0696},
+                {3.0, 1.575, 0.778, 0.096, 13.78, -0.1032},
+                {4.0, 1.612, 0.706, 0.137, 14.11, -0.1471},
+                {5.0, 1.53, 0.722, 0.139, 14.19, -0.1526},
+                {6.0, 1.497, 0.721, 0.145, 14.37, -0.1578},
+                {8.0, 1.443, 0.808, 0.123, 14.3, -0.1385},
+                {10.0, 1.424, 0.94, 0.09, 14.2, -0.1121}
+        };
+    }
+
+    private static double[][] gpAluminum(){
+        return new double[][]{
+                {0.015, 1.029, 0.364, 0.24, 14.12, -0.1704},
+                {0.02, 1.072, 0.349, 0.241, 14.25, -0.128},
+                {0.03, 1.226, 0.415, 0.206, 14.06, -0.1131},
+                {0.04, 1.504, 0.492, 0.172, 14.83, -0.0948},
+                {0.05, 1.935, 0.57, 0.148, 14.64, -0.0888},
+                {0.06, 2.436, 0.683, 0.109, 14.74, -0.0784},
+                {0.08, 3.399, 0.926, 0.033, 14.11, -0.0328},
+                {0.1, 3.991, 1.148, -0.02, 13.53, -0.0085},
+                {0.15, 4.141, 1.441, -0.076, 14.24, 0.0185},
+                {0.2, 3.69, 1.585, -0.1, 14.16, 0.0316},
+                {0.3, 3.101, 1.636, -0.109, 14.26, 0.0349},
+                {0.4, 2.791, 1.593, -0.103, 14.76, 0.0306},
+                {0.5, 2.609, 1.528, -0.093, 15.47, 0.0249},
+                {0.6, 2.428, 1.521, -0.096, 14.79, 0.0322},
+                {0.8, 2.237, 1.439, -0.084, 14.68, 0.0284},
+                {1.0, 2.119, 1.368, -0.073, 15.07, 0.0257},
+                {1.5, 1.94, 1.245, -0.052, 14.72, 0.0196},
+                {2.0, 1.835, 1.16, -0.034, 14.89, 0.0107},
+                {3.0, 1.694, 1.059, -0.011, 10.74, -0.0011},
+                {4.0, 1.605, 0.992, 0.006, 12.74, -0.0087},
+                {5.0, 1.533, 0.945, 0.021, 14.17, -0.0223},
+                {6.0, 1.464, 0.936, 0.024, 15.05, -0.029},
+                {8.0, 1.374, 0.913, 0.031, 14.15, -0.0269},
+                {10.0, 1.308, 0.904, 0.036, 14.3, -0.0322}
+        };
+    }
+
+    private static double[][] gpConcreteO(){
+        return new double[][]{
+                {0.015, 1.028, 0.429, 0.174, 27.56, -0.2976},
+                {0.02, 1.067, 0.396, 0.204, 13.32, -0.096},
+                {0.03, 1.22, 0.403, 0.212, 14.44, -0.116},
+                {0.04, 1.472, 0.489, 0.172, 14.92, -0.0943},
+                {0.05, 1.826, 0.602, 0.127, 15.51, -0.0687},
+                {0.06, 2.249, 0.723, 0.087, 16.62, -0.0622},
+                {0.08, 3.263, 0.885, 0.045, 14.03, -0.0402},
+                {0.1, 3.867, 1.101, -0.009, 13.91, -0.0161},
+                {0.15, 4.066, 1.413, -0.072, 13.89, 0.0174},
+                {0.2, 3.682, 1.552, -0.095, 13.73, 0.0285},
+                {0.3, 3.09, 1.617, -0.106, 14.23, 0.0331},
+                {0.4, 2.774, 1.593, -0.104, 14.36, 0.0323},
+                {0.5, 2.572, 1.552, -0.099, 14.76, 0.0315},
+                {0.6, 2.433, 1.507, -0.093, 14.78, 0.0296},
+                {0.8, 2.243, 1.429, -0.082, 14.85, 0.027},
+                {1.0, 2.124, 1.359, -0.071, 15.31, 0.0243},
+                {1.5, 1.934, 1.249, -0.053, 14.53, 0.0201},
+                {2.0, 1.834, 1.161, -0.035, 13.88, 0.0117},
+                {3.0, 1.701, 1.051, -0.009, 10.11, -0.0021},
+                {4.0, 1.613, 0.981, 0.01, 12.99, -0.0133},
+                {5.0, 1.551, 0.951, 0.03, 11.99, -0.0263},
+                {6.0, 1.475, 0.93, 0.024, 15.87, -0.0273},
+                {8.0, 1.383, 0.909, 0.031, 12.43, -0.0218},
+                {10.0, 1.32, 0.902, 0.033, 14.83, -0.0258}
+        };
+    }
+
+    private static double[][] gpWater(){
+        return new double[][]{
+                {0.015, 1.188, 0.464, 0.172, 14.0, -0.0829},
+                {0.02, 1.449, 0.532, 0.152, 14.61, -0.0764},
+                {0.03, 2.411, 0.741, 0.084, 14.62, -0.0452},
+                {0.04, 3.587, 1.114, -0.018, 12.48, 0.0013},
+                {0.05, 4.554, 1.457, -0.084, 13.69, 0.0341},
+                {0.06, 5.018, 1.735, -0.127, 13.7, 0.0676},
+                {0.08, 5.03, 2.054, -0.167, 13.84, 0.0763},
+                {0.1, 4.627, 2.207, -0.184, 13.27, 0.0799},
+                {0.15, 3.888, 2.206, -0.18, 14.27, 0.0738},
+                {0.2, 3.462, 2.132, -0.173, 14.51, 0.075},
+                {0.3, 2.897, 2.008, -0.162, 14.18, 0.0641},
+                {0.4, 2.646, 1.874, -0.148, 14.16, 0.0591},
+                {0.5, 2.499, 1.749, -0.132, 14.36, 0.0517},
+                {0.6, 2.383, 1.662, -0.121, 14.19, 0.0482},
+                {0.8, 2.223, 1.524, -0.101, 14.31, 0.0403},
+                {1.0, 2.106, 1.436, -0.088, 14.19, 0.0367},
+                {1.5, 1.948, 1.265, -0.057, 14.98, 0.0245},
+                {2.0, 1.843, 1.169, -0.038, 14.22, 0.0157},
+                {3.0, 1.716, 1.05, -0.011, 13.63, 0.0027},
+                {4.0, 1.633, 0.979, 0.007, 14.23, -0.006},
+                {5.0, 1.571, 0.928, 0.022, 13.2, -0.0157},
+                {6.0, 1.521, 0.893, 0.033, 11.92, -0.0208},
+                {8.0, 1.432, 0.873, 0.038, 11.56, -0.0204},
+                {10.0, 1.378, 0.849, 0.045, 14.34, -0.028}
+        };
+    }
+
+    private static double[][] gpTungsten(){
+        return new double[][]{
+                {0.015, 1.001, 0.277, 0.342, 19.18, -0.3351},
+                {0.02, 1.002, 0.258, 0.394, 13.12, -0.3192},
+                {0.03, 1.004, 0.554, 0.136, 15.36, -0.0677},
+                {0.04, 1.011, 0.346, 0.279, 14.35, -0.1832},
+                {0.05, 1.018, 0.407, 0.23, 13.8, -0.1384},
+                {0.06, 1.029, 0.415, 0.224, 13.44, -0.1325},
+                {0.08, 1.956, 1.461, 0.073, 27.21, -0.1584},
+                {0.1, 1.809, 0.852, 0.164, 16.39, -0.1348},
+                {0.15, 1.613, 0.124, 0.194, 8.36, 0.0659},
+                {0.2, 1.528, 0.073, 0.634, 13.97, -0.2997},
+                {0.3, 1.563, 0.204, 0.395, 13.29, -0.2179},
+                {0.4, 1.683, 0.327, 0.294, 13.68, -0.1857},
+                {0.5, 1.802, 0.416, 0.237, 13.74, -0.155},
+                {0.6, 1.759, 0.534, 0.171, 13.78, -0.1124},
+                {0.8, 1.91, 0.607, 0.139, 13.57, -0.0952},
+                {1.0, 1.869, 0.689, 0.106, 13.54, -0.076},
+                {1.5, 1.84, 0.818, 0.061, 13.42, -0.0512},
+                {2.0, 1.748, 0.827, 0.068, 13.39, -0.0694},
+                {3.0, 1.582, 0.84, 0.076, 13.53, -0.0922},
+                {4.0, 1.46, 0.828, 0.091, 13.78, -0.1126},
+                {5.0, 1.509, 0.756, 0.126, 14.11, -0.1441},
+                {6.0, 1.48, 0.768, 0.127, 14.27, -0.1441},
+                {8.0, 1.431, 0.839, 0.112, 14.28, -0.1304},
+                {10.0, 1.481, 0.844, 0.128, 14.12, -0.1624}
+        };
+    }
+
+    private static double[][] gpCopper(){
+        return new double[][]{
+                {0.015, 1.001, 2.044, -0.31, 11.15, 0.2519},
+                {0.02, 1.006, 0.23, 0.442, 12.61, -0.5099},
+                {0.03, 1.017, 0.37, 0.247, 11.26, -0.1771},
+                {0.04, 1.038, 0.392, 0.197, 25.45, -0.2886},
+                {0.05, 1.071, 0.353, 0.243, 12.89, -0.1407},
+                {0.06, 1.121, 0.34, 0.25, 14.53, -0.1501},
+                {0.08, 1.246, 0.395, 0.217, 14.39, -0.1226},
+                {0.1, 1.381, 0.539, 0.133, 19.42, -0.0874},
+                {0.15, 2.12, 0.472, 0.208, 13.51, -0.1372},
+                {0.2, 2.603, 0.671, 0.12, 13.45, -0.0928},
+                {0.3, 2.926, 0.921, 0.039, 12.8, -0.0495},
+                {0.4, 2.795, 1.07, 0.002, 12.19, -0.0331},
+                {0.5, 2.612, 1.158, -0.02, 11.56, -0.019},
+                {0.6, 2.479, 1.191, -0.028, 10.74, -0.0147},
+                {0.8, 2.27, 1.21, -0.033, 8.79, -0.0131},
+                {1.0, 2.129, 1.211, -0.036, 7.13, -0.009},
+                {1.5, 1.952, 1.149, -0.025, 8.18, -0.0085},
+                {2.0, 1.835, 1.113, -0.019, 9.49, -0.0052},
+                {3.0, 1.673, 1.041, 0.001, 12.27, -0.0174},
+                {4.0, 1.542, 1.016, 0.01, 14.08, -0.0286},
+                {5.0, 1.451, 0.993, 0.019, 14.15, -0.0372},
+                {6.0, 1.381, 0.984, 0.023, 14.3, -0.0395},
+                {8.0, 1.289, 0.959, 0.036, 14.05, -0.0494},
+                {10.0, 1.226, 0.958, 0.041, 14.33, -0.0536}
+        };
+    }
+
+    private static double[][] gpTin(){
+        return new double[][]{
+                {0.015, 1.003, 0.405, 0.215, 26.26, -0.3092},
+                {0.02, 1.006, 0.381, 0.252, 13.99, -0.1592},
+                {0.03, 1.787, 1.859, 0.042, 11.1, -0.0316},
+                {0.04, 1.691, 1.229, 0.096, 29.62, -0.1824},
+                {0.05, 1.636, 0.496, 0.276, 16.81, -0.2316},
+                {0.06, 1.566, 0.258, -0.08, 21.22, 0.0579},
+                {0.08, 1.393, 0.033, 0.741, 14.35, -0.2278},
+                {0.1, 1.123, 0.245, 0.342, 12.99, -0.2053},
+                {0.15, 1.17, 0.504, 0.152, 13.45, -0.075},
+                {0.2, 1.456, 0.356, 0.263, 14.22, -0.1497},
+                {0.3, 1.924, 0.46, 0.213, 14.1, -0.1426},
+                {0.4, 2.224, 0.589, 0.151, 13.88, -0.1057},
+                {0.5, 2.337, 0.702, 0.11, 13.9, -0.0892},
+                {0.6, 2.391, 0.769, 0.085, 13.78, -0.0736},
+                {0.8, 2.332, 0.852, 0.057, 13.76, -0.0574},
+                {1.0, 2.236, 0.901, 0.041, 13.52, -0.0463},
+                {1.5, 1.929, 1.03, 0.001, 13.25, -0.0179},
+                {2.0, 1.814, 0.981, 0.021, 13.33, -0.0392},
+                {3.0, 1.643, 0.933, 0.043, 13.32, -0.0665},
+                {4.0, 1.517, 0.891, 0.063, 13.52, -0.0873},
+                {5.0, 1.575, 0.814, 0.096, 13.88, -0.1167},
+                {6.0, 1.568, 0.732, 0.136, 14.03, -0.1584},
+                {8.0, 1.469, 0.807, 0.112, 14.26, -0.1297},
+                {10.0, 1.435, 0.895, 0.088, 14.8, -0.1043}
+        };
+    }
+}
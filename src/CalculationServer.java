@@ -0,0 +1,338 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CalculationServer.java
+ *
+ * Long-running local HTTP service over the JDK's built-in HttpServer, so design tools
+ * can query the calculator without paying JVM startup per calculation.
+ *
+ * All endpoints are GET requests with query parameters and return JSON.
+ * Layers are written as material:thickness pairs separated by commas, e.g. layers=lead:5,concrete_ordinary:10,
+ * where material is a MaterialLibrary key or menu index. Materials and compiled tables stay resident.
+ *
+ * Endpoints:
+ * - /                                         -> list of endpoints
+ * - /health                                   -> {"status": "ok"} and result cache statistics
+ * - /materials                                -> available material keys, names and densities
+ * - /mu?energy=&material=                     -> linear attenuation coefficient (1/cm)
+ * - /transmission?energy=&layers=[&buildup=]  -> stack transmission
+ * - /flux?energy=&source_strength=&distance=&layers=[&buildup=]
+ * - /thickness?energy=&material=&(target_transmission=|reduction_factor=|target_flux=&source_strength=&distance=)
+ *              [&buildup=&max_thickness=]     -> minimum single-layer thickness (cm)
+ * - /spectrum?isotope=&activity=&distance=&layers=[&buildup=] -> per-line and total flux
+ *
+ * Invalid requests (IllegalArgumentException) return 400 with {"error": "..."}; unknown paths return 404
+ * and any other failure returns 500 with a generic message (the exception is logged to stderr).
+ *
+ * Narrow-beam transmission and flux queries go through a shared TransmissionCache.
+ *
+ * Requests run on a virtual-thread-per-task executor when the runtime provides one (JDK 21+),
+ * otherwise on a fixed pool of daemon platform threads.
+ */
+public class CalculationServer{
+
+    //Default listening port and connection backlog
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 1024;
+    //Search bound (cm) for buildup-corrected thickness solves when max_thickness is not given
+    private static final double DEFAULT_MAX_THICKNESS = 1000;
+    //Narrow-beam stack transmissions kept by the result cache
+    private static final int CACHE_ENTRIES = 65536;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TransmissionCache cache = new TransmissionCache(CACHE_ENTRIES);
+
+    //Functional form of one endpoint: reads query parameters, appends JSON fields to out
+    private interface Endpoint{
+        void handle(Map<String, String> query, StringBuilder out);
+    }
+
+    //Creates a server bound to host:port (port 0 picks a free port). Call start() to accept requests.
+    public CalculationServer(String host, int port) throws IOException{
+        server = HttpServer.create(new InetSocketAddress(host, port), BACKLOG);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        route("/", (q, out) -> out.append("\"endpoints\":[\"/health\",\"/materials\",\"/mu\",\"/transmission\","
+                + "\"/flux\",\"/thickness\",\"/spectrum\"]"));
+        route("/health", this::health);
+        route("/materials", CalculationServer::materials);
+        route("/mu", CalculationServer::mu);
+        route("/transmission", this::transmission);
+        route("/flux", this::flux);
+        route("/thickness", CalculationServer::thickness);
+        route("/spectrum", CalculationServer::spectrum);
+    }
+
+    public void start(){
+        server.start();
+    }
+
+    //Stops accepting requests, waits up to delaySeconds for running exchanges and releases the executor
+    public void stop(int delaySeconds){
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    //Bound port (useful when created with port 0)
+    public int port(){
+        return server.getAddress().getPort();
+    }
+
+    //Virtual thread per request when available, otherwise a fixed daemon pool sized for short CPU-bound queries
+    static ExecutorService newRequestExecutor(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch(ReflectiveOperationException e){
+            int threads = Math.max(16, 4*Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "calculation-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void route(String path, Endpoint endpoint){
+        server.createContext(path, exchange -> {
+            int status = 200;
+            StringBuilder out = new StringBuilder(256).append('{');
+            try{
+                if(!exchange.getRequestMethod().equals("GET")){
+                    status = 405;
+                    error(out, "Only GET is supported.");
+                }else if(!exchange.getRequestURI().getPath().equals(path)){
+                    status = 404;
+                    error(out, "Unknown endpoint " + exchange.getRequestURI().getPath());
+                }else{
+                    endpoint.handle(parseQuery(exchange.getRequestURI().getRawQuery()), out);
+                }
+            }catch(IllegalArgumentException e){
+                status = 400;
+                out.setLength(1);
+                error(out, e.getMessage());
+            }catch(RuntimeException e){
+                status = 500;
+                out.setLength(1);
+                //Details stay in the server log; the client only learns that the request failed
+                System.err.println("Internal error handling " + exchange.getRequestURI() + ":");
+                e.printStackTrace();
+                error(out, "Internal error.");
+            }
+            out.append('}');
+            byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try(OutputStream os = exchange.getResponseBody()){
+                os.write(body);
+            }
+        });
+    }
+
+    private void health(Map<String, String> query, StringBuilder out){
+        TransmissionCache.Stats stats = cache.stats();
+        out.append("\"status\":\"ok\",\"cache\":{\"hits\":").append(stats.hits())
+                .append(",\"misses\":").append(stats.misses())
+                .append(",\"evictions\":").append(stats.evictions())
+                .append(",\"size\":").append(stats.size())
+                .append(",\"mu_hits\":").append(stats.muHits())
+                .append(",\"mu_misses\":").append(stats.muMisses()).append('}');
+    }
+
+    private static void materials(Map<String, String> query, StringBuilder out){
+        out.append("\"materials\":[");
+        for(int i = 1; i <= MaterialLibrary.size(); i++){
+            Material mat = MaterialLibrary.getMaterial(i);
+            if(i > 1) out.append(',');
+            out.append("{\"index\":").append(i).append(",\"key\":");
+            Json.writeString(out, MaterialLibrary.getKey(i));
+            out.append(",\"name\":");
+            Json.writeString(out, mat.name);
+            out.append(",\"density\":").append(mat.density).append('}');
+        }
+        out.append(']');
+    }
+
+    private static void mu(Map<String, String> query, StringBuilder out){
+        double energy = number(query, "energy");
+        Material mat = BatchProcessor.resolveMaterial(required(query, "material"));
+        field(out, "energy", energy).append(',');
+        field(out, "mu", Physics.getMu(energy, mat));
+    }
+
+    private void transmission(Map<String, String> query, StringBuilder out){
+        double energy = number(query, "energy");
+        field(out, "energy", energy).append(',');
+        field(out, "transmission", stackTransmission(energy, layers(query), flag(query, "buildup")));
+    }
+
+    private void flux(Map<String, String> query, StringBuilder out){
+        double energy = number(query, "energy");
+        double sourceStrength = nonNegative(query, "source_strength");
+        double distance = positive(query, "distance");
+        double transmission = stackTransmission(energy, layers(query), flag(query, "buildup"));
+        field(out, "transmission", transmission).append(',');
+        field(out, "flux", ShieldingCalculator.computeFlux(transmission, distance, sourceStrength));
+    }
+
+    private static void thickness(Map<String, String> query, StringBuilder out){
+        double energy = number(query, "energy");
+        Material mat = BatchProcessor.resolveMaterial(required(query, "material"));
+        double target;
+        if(query.containsKey("target_transmission")){
+            target = number(query, "target_transmission");
+        }else if(query.containsKey("reduction_factor")){
+            target = ThicknessSolver.transmissionForReductionFactor(number(query, "reduction_factor"));
+        }else if(query.containsKey("target_flux")){
+            target = ThicknessSolver.transmissionForFlux(number(query, "target_flux"),
+                    number(query, "distance"), number(query, "source_strength"));
+        }else{
+            throw new IllegalArgumentException("One of target_transmission, reduction_factor or target_flux is required.");
+        }
+        double thickness;
+        if(flag(query, "buildup")){
+            double mu = Physics.getMu(energy, mat);
+            double max = query.containsKey("max_thickness") ? positive(query, "max_thickness") : DEFAULT_MAX_THICKNESS;
+            max = Math.min(max, Buildup.MAX_MFP/mu*(1.0 - 1.0e-12));
+            Buildup.Coefficients coefficients = Buildup.coefficients(mat, energy);
+            thickness = ThicknessSolver.minimumThickness(t -> Math.exp(-mu*t)*coefficients.factor(mu*t),
+                    target, max, ThicknessSolver.DEFAULT_TOLERANCE);
+        }else{
+            thickness = ThicknessSolver.minimumThickness(energy, mat, target);
+        }
+        field(out, "target_transmission", target).append(',');
+        field(out, "thickness", thickness);
+    }
+
+    private static void spectrum(Map<String, String> query, StringBuilder out){
+        PhotonSource source = SourceLibrary.createIsotopeSource(required(query, "isotope").toLowerCase(),
+                number(query, "activity"));
+        double distance = positive(query, "distance");
+        boolean buildup = flag(query, "buildup");
+        SourceResult result = SourceCalculator.computeResponse(source, layers(query), distance, buildup);
+        out.append("\"lines\":[");
+        for(int k = 0; k < result.lineCount(); k++){
+            if(k > 0) out.append(',');
+            out.append('{');
+            field(out, "energy", result.energy(k)).append(',');
+            field(out, "photon_rate", result.photonRate(k)).append(',');
+            field(out, "transmission", result.transmission(k)).append(',');
+            field(out, "uncollided_flux", result.uncollidedFlux(k));
+            if(buildup){
+                out.append(',');
+                field(out, "buildup_factor", result.buildupFactor(k)).append(',');
+                field(out, "buildup_flux", result.buildupFlux(k));
+            }
+            out.append('}');
+        }
+        out.append("],");
+        field(out, "total_uncollided_flux", result.totalUncollidedFlux());
+        if(buildup){
+            out.append(',');
+            field(out, "total_buildup_flux", result.totalBuildupFlux());
+        }
+    }
+
+    //Narrow-beam transmissions come from the result cache; buildup-corrected ones are computed directly
+    private double stackTransmission(double energy, ArrayList<Layer> layers, boolean buildup){
+        return buildup ? ShieldingCalculator.computeTransmission(energy, layers, true) : cache.transmission(energy, layers);
+    }
+
+    //Parses layers=material:thickness,material:thickness (an absent or empty value means no shielding)
+    private static ArrayList<Layer> layers(Map<String, String> query){
+        ArrayList<Layer> layers = new ArrayList<>();
+        String spec = query.get("layers");
+        if(spec == null || spec.isEmpty()){
+            return layers;
+        }
+        for(String pair: spec.split(",")){
+            int colon = pair.lastIndexOf(':');
+            if(colon <= 0){
+                throw new IllegalArgumentException("Layers must be material:thickness pairs, got \"" + pair + "\".");
+            }
+            double thickness = parse("layer thickness", pair.substring(colon + 1).trim());
+            if(!(thickness >= 0)){
+                throw new IllegalArgumentException("Thickness cannot be negative.");
+            }
+            layers.add(new Layer(BatchProcessor.resolveMaterial(pair.substring(0, colon).trim()), thickness));
+        }
+        return layers;
+    }
+
+    static Map<String, String> parseQuery(String rawQuery){
+        Map<String, String> query = new HashMap<>();
+        if(rawQuery == null || rawQuery.isEmpty()){
+            return query;
+        }
+        for(String part: rawQuery.split("&")){
+            int eq = part.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? part : part.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(key, value);
+        }
+        return query;
+    }
+
+    private static String required(Map<String, String> query, String key){
+        String value = query.get(key);
+        if(value == null || value.isEmpty()){
+            throw new IllegalArgumentException("Missing parameter \"" + key + "\".");
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> query, String key){
+        return parse(key, required(query, key));
+    }
+
+    private static double positive(Map<String, String> query, String key){
+        double value = number(query, key);
+        if(!(value > 0)){
+            throw new IllegalArgumentException("Parameter \"" + key + "\" must be greater than zero.");
+        }
+        return value;
+    }
+
+    private static double nonNegative(Map<String, String> query, String key){
+        double value = number(query, key);
+        if(!(value >= 0)){
+            throw new IllegalArgumentException("Parameter \"" + key + "\" cannot be negative.");
+        }
+        return value;
+    }
+
+    //Parses a finite number; NaN and Infinity are rejected
+    private static double parse(String name, String text){
+        double value;
+        try{
+            value = Double.parseDouble(text);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Parameter \"" + name + "\" is not a number: " + text);
+        }
+        if(!Double.isFinite(value)){
+            throw new IllegalArgumentException("Parameter \"" + name + "\" must be finite: " + text);
+        }
+        return value;
+    }
+
+    private static boolean flag(Map<String, String> query, String key){
+        String value = query.get(key);
+        return value != null && (value.isEmpty() || value.equalsIgnoreCase("true") || value.equals("1"));
+    }
+
+    private static StringBuilder field(StringBuilder out, String key, double value){
+        out.append('"').append(key).append("\":");
+        //JSON has no NaN or Infinity
+        return Double.isFinite(value) ? out.append(value) : out.append("null");
+    }
+
+    private static void error(StringBuilder out, String message){
+        out.append("\"error\":");
+        Json.writeString(out, message == null ? "Invalid request." : message);
+    }
+}
@@ -0,0 +1,334 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * CrossSectionDatabase.java
+ *
+ * Read-only photon cross-section library stored in a compact binary file and read through a
+ * memory-mapped buffer, so opening a library of hundreds of materials only validates its blocks
+ * (no Material is built until requested) and the data pages are shared between JVMs through the OS
+ * page cache.
+ *
+ * File layout (big-endian, every block 8-byte aligned):
+ * - Header (32 bytes): magic "XSDB", format version, material count, reserved int,
+ *   index offset (long), string table offset (long)
+ * - Index: one 40-byte entry per material: key offset and length, name offset and length (into the
+ *   string table, UTF-8), density (g/cm^3), energy point count, component mask, data block offset (long)
+ * - String table: the UTF-8 keys and names
+ * - Data blocks: per material, contiguous doubles: energies (MeV), then each component present in the
+ *   mask, in the order total, photoelectric, Compton, pair (cm^2/g)
+ *
+ * Every block is checked when the file is opened (two or more points, positive non-decreasing
+ * energies, finite values, the total alone or all three components), so a file that opens can always
+ * be evaluated. Materials are built from their block on first request and then shared, like
+ * MaterialLibrary. Malformed files throw IllegalArgumentException.
+ */
+public final class CrossSectionDatabase{
+
+    //"XSDB"
+    static final int MAGIC = 0x58534442;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int ENTRY_BYTES = 40;
+
+    //Component mask bits
+    static final int TOTAL = 1;
+    static final int PHOTOELECTRIC = 2;
+    static final int COMPTON = 4;
+    static final int PAIR = 8;
+
+    private final ByteBuffer data;
+    private final String[] keys;
+    private final String[] names;
+    private final Map<String, Integer> byKey;
+    private final AtomicReferenceArray<Material> materials;
+    //Key of every Material handed out, by instance (Material does not override equals)
+    private final ConcurrentHashMap<Material, String> keyOf = new ConcurrentHashMap<>();
+
+    private CrossSectionDatabase(ByteBuffer data){
+        this.data = data;
+        if(data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC){
+            throw new IllegalArgumentException("Not a cross-section database.");
+        }
+        if(data.getInt(4) != VERSION){
+            throw new IllegalArgumentException("Unsupported cross-section database version: " + data.getInt(4));
+        }
+        int count = data.getInt(8);
+        long indexOffset = data.getLong(16);
+        if(count < 0 || indexOffset < HEADER_BYTES || indexOffset + (long) count*ENTRY_BYTES > data.capacity()){
+            throw new IllegalArgumentException("Cross-section database index is out of bounds.");
+        }
+        keys = new String[count];
+        names = new String[count];
+        byKey = new HashMap<>(2*count);
+        for(int i = 0; i < count; i++){
+            int entry = entry(i);
+            keys[i] = string(data.getInt(entry), data.getInt(entry + 4));
+            names[i] = string(data.getInt(entry + 8), data.getInt(entry + 12));
+            int points = data.getInt(entry + 24);
+            int mask = data.getInt(entry + 28);
+            long offset = data.getLong(entry + 32);
+            long end = offset + 8L*points*(1 + Integer.bitCount(mask));
+            //AttenuationTable evaluates either the total alone or all three components
+            boolean validMask = mask == TOTAL || mask == (PHOTOELECTRIC | COMPTON | PAIR);
+            if(points < 2 || offset < 0 || (offset & 7) != 0 || end > data.capacity() || !validMask){
+                throw new IllegalArgumentException("Invalid cross-section block for " + keys[i] + ".");
+            }
+            double[][] columns = new double[Integer.bitCount(mask)][];
+            for(int c = 0; c < columns.length; c++){
+                columns[c] = doubles((int) offset + 8*points*(c + 1), points);
+            }
+            checkBlock(keys[i], doubles((int) offset, points), columns);
+            if(byKey.put(keys[i], i) != null){
+                throw new IllegalArgumentException("Duplicate material key in cross-section database: " + keys[i]);
+            }
+        }
+        materials = new AtomicReferenceArray<>(count);
+    }
+
+    //Maps a database file read-only. The mapping stays valid after the channel is closed.
+    public static CrossSectionDatabase open(Path file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IllegalArgumentException(file.getFileName() + ": cross-section database larger than 2 GB.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try{
+                return new CrossSectionDatabase(buffer);
+            }catch(IllegalArgumentException e){
+                throw new IllegalArgumentException(file.getFileName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    //Number of materials in the database
+    public int size(){
+        return keys.length;
+    }
+
+    //Stable key of the material at position i (0-based, file order)
+    public String key(int i){
+        return keys[i];
+    }
+
+    public String name(int i){
+        return names[i];
+    }
+
+    public double density(int i){
+        return data.getDouble(entry(i) + 16);
+    }
+
+    //Position of a key, or -1 if the database does not contain it
+    public int indexOf(String key){
+        Integer i = byKey.get(key);
+        return i == null ? -1 : i;
+    }
+
+    //Returns the shared Material for a key, or null if the database does not contain it
+    public Material getMaterial(String key){
+        int i = indexOf(key);
+        return i < 0 ? null : getMaterial(i);
+    }
+
+    //Returns the shared Material at position i, building it from its data block on first use
+    public Material getMaterial(int i){
+        Material mat = materials.get(i);
+        if(mat == null){
+            mat = read(i);
+            if(materials.compareAndSet(i, null, mat)){
+                keyOf.put(mat, keys[i]);
+            }else{
+                mat = materials.get(i);
+            }
+        }
+        return mat;
+    }
+
+    //Returns the key of a Material instance handed out by this database, or null
+    public String getKey(Material mat){
+        return keyOf.get(mat);
+    }
+
+    private Material read(int i){
+        int entry = entry(i);
+        int points = data.getInt(entry + 24);
+        int mask = data.getInt(entry + 28);
+        int offset = (int) data.getLong(entry + 32);
+        double[] energy = doubles(offset, points);
+        offset += 8*points;
+        Material mat;
+        if((mask & TOTAL) != 0){
+            mat = new Material(names[i], density(i), energy, doubles(offset, points));
+        }else{
+            double[][] components = new double[3][];
+            int[] bits = {PHOTOELECTRIC, COMPTON, PAIR};
+            for(int c = 0; c < bits.length; c++){
+                if((mask & bits[c]) == 0) continue;
+                components[c] = doubles(offset, points);
+                offset += 8*points;
+            }
+            mat = new Material(names[i], density(i), energy, components[0], components[1], components[2]);
+        }
+        //Compile once so every user of the shared instance gets the same table
+        AttenuationTable.of(mat);
+        return mat;
+    }
+
+    private int entry(int i){
+        return (int) (data.getLong(16) + (long) i*ENTRY_BYTES);
+    }
+
+    //Copies doubles out of the mapping; slices keep concurrent reads independent of the buffer position
+    private double[] doubles(int offset, int count){
+        double[] values = new double[count];
+        data.slice(offset, 8*count).order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    private String string(int offset, int length){
+        long stringsOffset = data.getLong(24);
+        if(offset < 0 || length < 0 || stringsOffset + offset + length > data.capacity()){
+            throw new IllegalArgumentException("Cross-section database string is out of bounds.");
+        }
+        byte[] bytes = new byte[length];
+        data.get((int) stringsOffset + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //Writes materials under the given keys to a database file
+    public static void write(Path file, List<String> keys, List<Material> materials) throws IOException{
+        if(keys.size() != materials.size()){
+            throw new IllegalArgumentException("keys and materials must have the same length.");
+        }
+        if(new HashSet<>(keys).size() != keys.size()){
+            throw new IllegalArgumentException("Material keys must be unique.");
+        }
+        int count = keys.size();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[][] stringRefs = new int[count][4];
+        int[] masks = new int[count];
+        long dataBytes = 0;
+        for(int i = 0; i < count; i++){
+            Material mat = materials.get(i);
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            byte[] name = mat.name.getBytes(StandardCharsets.UTF_8);
+            stringRefs[i] = new int[]{strings.size(), key.length, strings.size() + key.length, name.length};
+            strings.write(key);
+            strings.write(name);
+            masks[i] = mask(mat);
+            if(masks[i] == 0){
+                throw new IllegalArgumentException("Material " + mat.name
+                        + " needs total or photoelectric, Compton and pair attenuation data.");
+            }
+            checkBlock(mat.name, mat.energy, columns(mat));
+            dataBytes += 8L*mat.energy.length*(1 + Integer.bitCount(masks[i]));
+        }
+        long indexOffset = HEADER_BYTES;
+        long stringsOffset = indexOffset + (long) count*ENTRY_BYTES;
+        long dataOffset = align(stringsOffset + strings.size());
+        long total = dataOffset + dataBytes;
+        if(total > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Cross-section database would exceed 2 GB.");
+        }
+        ByteBuffer out = ByteBuffer.allocate((int) total);
+        out.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(indexOffset).putLong(stringsOffset);
+        long offset = dataOffset;
+        for(int i = 0; i < count; i++){
+            Material mat = materials.get(i);
+            out.putInt(stringRefs[i][0]).putInt(stringRefs[i][1]).putInt(stringRefs[i][2]).putInt(stringRefs[i][3]);
+            out.putDouble(mat.density).putInt(mat.energy.length).putInt(masks[i]).putLong(offset);
+            offset += 8L*mat.energy.length*(1 + Integer.bitCount(masks[i]));
+        }
+        out.put(strings.toByteArray());
+        out.position((int) dataOffset);
+        for(Material mat: materials){
+            out.asDoubleBuffer().put(mat.energy);
+            out.position(out.position() + 8*mat.energy.length);
+            for(double[] column: columns(mat)){
+                if(column == null) continue;
+                out.asDoubleBuffer().put(column);
+                out.position(out.position() + 8*column.length);
+            }
+        }
+        out.flip();
+        //Write next to the target and move into place so readers never map a half-written file
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try{
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)){
+                while(out.hasRemaining()){
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }finally{
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //Writes the built-in MaterialLibrary tables, in menu order, to a database file.
+    //Tables come from the create methods, so a database loaded through shield.xsdb is not re-exported.
+    public static void exportBuiltIn(Path file) throws IOException{
+        List<String> keys = new ArrayList<>();
+        List<Material> materials = new ArrayList<>();
+        for(int i = 1; i <= MaterialLibrary.size(); i++){
+            keys.add(MaterialLibrary.getKey(i));
+            materials.add(MaterialLibrary.createBuiltIn(i));
+        }
+        write(file, keys, materials);
+    }
+
+    //Stored components of a material, or 0 if AttenuationTable could not evaluate it
+    private static int mask(Material mat){
+        if(mat.muOverP != null) return TOTAL;
+        if(mat.muPhotoOverP != null && mat.muComptonOverP != null && mat.muPairOverP != null){
+            return PHOTOELECTRIC | COMPTON | PAIR;
+        }
+        return 0;
+    }
+
+    //Rejects a block AttenuationTable cannot evaluate: fewer than two points, energies that are not
+    //positive, finite and non-decreasing, no non-degenerate segment, or non-finite attenuation values
+    private static void checkBlock(String name, double[] energy, double[][] columns){
+        if(energy.length < 2){
+            throw new IllegalArgumentException("Attenuation data of " + name + " needs at least two energy points.");
+        }
+        for(int k = 0; k < energy.length; k++){
+            if(!(energy[k] > 0) || Double.isInfinite(energy[k]) || (k > 0 && energy[k] < energy[k - 1])){
+                throw new IllegalArgumentException("Energy grid of " + name + " is invalid at index " + k + ".");
+            }
+        }
+        if(energy[0] == energy[energy.length - 1]){
+            throw new IllegalArgumentException("Energy grid of " + name + " has no non-degenerate segment.");
+        }
+        for(double[] column: columns){
+            if(column.length != energy.length){
+                throw new IllegalArgumentException("Attenuation arrays of " + name + " differ in length.");
+            }
+            for(double value: column){
+                if(!Double.isFinite(value)){
+                    throw new IllegalArgumentException("Attenuation data of " + name + " is not finite.");
+                }
+            }
+        }
+    }
+
+    //Stored attenuation columns in file order (absent ones are null)
+    private static double[][] columns(Material mat){
+        if(mat.muOverP != null) return new double[][]{mat.muOverP};
+        return new double[][]{mat.muPhotoOverP, mat.muComptonOverP, mat.muPairOverP};
+    }
+
+    private static long align(long offset){
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,458 @@
+import java.util.*;
+
+/**
+ * DecayChain.java
+ *
+ * Time-dependent photon emission of a radioactive decay chain, from the Bateman equations.
+ *
+ * Nuclides are ordered so that every parent comes before its daughters. With decay constants
+ * lambda_i and branching fractions b_ji (parent j to daughter i), atom numbers obey dN/dt = M N with
+ * M_ii = -lambda_i and M_ij = b_ji lambda_j: M is lower triangular, its eigenvalues are -lambda_i and
+ * its eigenvectors form a unit lower-triangular matrix V. Both V and V^-1 are built once per chain.
+ *
+ * For an initial inventory N(0) the solution is N(t) = V diag(exp(-lambda_j t)) V^-1 N(0), so every
+ * activity, line rate and detector response is a fixed combination of the exponentials
+ * exp(-lambda_j t). A Solution folds the inventory into those coefficients once, and a Response
+ * folds the per-line shield response in as well; each time step then costs one exp per nuclide
+ * and one multiply-add per nuclide and line (or per nuclide for a Response).
+ *
+ * Nuclides that feed each other must have distinct decay constants (the transient case with equal
+ * half-lives has no eigen-decomposition). Stable nuclides have lambda = 0.
+ *
+ * Times in seconds, half-lives in seconds (Double.POSITIVE_INFINITY for stable), line energies in
+ * MeV and intensities in photons per decay of the emitting nuclide.
+ */
+public final class DecayChain{
+
+    public static final double SECONDS_PER_DAY = 24*3600;
+    public static final double SECONDS_PER_YEAR = 365.25*SECONDS_PER_DAY;
+
+    //Relative difference below which two decay constants are treated as equal
+    private static final double DEGENERATE = 1e-12;
+
+    //One member of a chain and the photon lines it emits
+    public static final class Nuclide{
+        final String name;
+        final double halfLife;
+        final double lambda;
+        final double[] energies;
+        final double[] intensities;
+
+        public Nuclide(String name, double halfLife, double[] energies, double[] intensities){
+            if(name == null || name.trim().isEmpty()){
+                throw new IllegalArgumentException("Nuclide name cannot be empty.");
+            }
+            if(!(halfLife > 0)){
+                throw new IllegalArgumentException("Half-life must be greater than zero.");
+            }
+            if(energies.length != intensities.length){
+                throw new IllegalArgumentException("Each photon line needs one energy and one intensity.");
+            }
+            for(int l = 0; l < energies.length; l++){
+                if(!(energies[l] > 0)){
+                    throw new IllegalArgumentException("Photon line energy must be greater than zero.");
+                }
+                if(!(intensities[l] >= 0)){
+                    throw new IllegalArgumentException("Photon line intensity cannot be negative.");
+                }
+            }
+            this.name = name;
+            this.halfLife = halfLife;
+            this.lambda = Double.isInfinite(halfLife) ? 0 : Math.log(2)/halfLife;
+            this.energies = energies.clone();
+            this.intensities = intensities.clone();
+        }
+
+        //Nuclide without photon lines of interest
+        public Nuclide(String name, double halfLife){
+            this(name, halfLife, new double[0], new double[0]);
+        }
+
+        public String name(){
+            return name;
+        }
+
+        public double halfLife(){
+            return halfLife;
+        }
+
+        //Decay constant (1/s)
+        public double decayConstant(){
+            return lambda;
+        }
+    }
+
+    private final Nuclide[] nuclides;
+    private final double[] lambda;
+    //Eigenvectors (columns) of the decay matrix and their inverse, both unit lower triangular
+    private final double[][] v;
+    private final double[][] vInverse;
+    //All photon lines of the chain in nuclide order, with their emitter
+    private final int[] lineNuclide;
+    private final double[] lineIntensity;
+    //Lines as a unit-rate source, for the per-line shield response and its mu cache
+    private final PhotonSource lines;
+
+    //branching[parent][daughter] is the fraction of parent decays producing the daughter.
+    //Parents must come before their daughters; fractions out of one parent may not exceed 1.
+    public DecayChain(List<Nuclide> nuclides, double[][] branching){
+        int n = nuclides.size();
+        if(n == 0){
+            throw new IllegalArgumentException("A decay chain needs at least one nuclide.");
+        }
+        if(branching.length != n){
+            throw new IllegalArgumentException("Branching matrix must be " + n + " x " + n + ".");
+        }
+        this.nuclides = nuclides.toArray(new Nuclide[0]);
+        this.lambda = new double[n];
+        for(int i = 0; i < n; i++){
+            lambda[i] = this.nuclides[i].lambda;
+        }
+        //Decay matrix below the diagonal: feed[i][j] = b_ji lambda_j
+        double[][] feed = new double[n][n];
+        for(int j = 0; j < n; j++){
+            if(branching[j].length != n){
+                throw new IllegalArgumentException("Branching matrix must be " + n + " x " + n + ".");
+            }
+            double total = 0;
+            for(int i = 0; i < n; i++){
+                double b = branching[j][i];
+                if(!(b >= 0)){
+                    throw new IllegalArgumentException("Branching fractions cannot be negative.");
+                }
+                if(b > 0 && i <= j){
+                    throw new IllegalArgumentException(this.nuclides[j].name + " must come before its daughter "
+                            + this.nuclides[i].name + ".");
+                }
+                if(b > 0 && lambda[j] == 0){
+                    throw new IllegalArgumentException("Stable nuclide " + this.nuclides[j].name + " cannot have daughters.");
+                }
+                feed[i][j] = b*lambda[j];
+                total += b;
+            }
+            if(total > 1 + 1e-12){
+                throw new IllegalArgumentException("Branching fractions of " + this.nuclides[j].name + " exceed 1.");
+            }
+        }
+
+        //Eigenvector j: v_jj = 1, v_ij = sum_{j<=k<i} feed_ik v_kj / (lambda_i - lambda_j)
+        v = new double[n][n];
+        for(int j = 0; j < n; j++){
+            v[j][j] = 1;
+            for(int i = j + 1; i < n; i++){
+                double sum = 0;
+                for(int k = j; k < i; k++){
+                    sum += feed[i][k]*v[k][j];
+                }
+                if(sum == 0) continue;
+                double gap = lambda[i] - lambda[j];
+                if(Math.abs(gap) <= DEGENERATE*Math.max(lambda[i], lambda[j])){
+                    throw new IllegalArgumentException(this.nuclides[j].name + " and " + this.nuclides[i].name
+                            + " have equal decay constants and are linked; the chain has no Bateman decomposition.");
+                }
+                v[i][j] = sum/gap;
+            }
+        }
+        //Forward substitution on the unit lower-triangular V
+        vInverse = new double[n][n];
+        for(int j = 0; j < n; j++){
+            vInverse[j][j] = 1;
+            for(int i = j + 1; i < n; i++){
+                double sum = 0;
+                for(int k = j; k < i; k++){
+                    sum += v[i][k]*vInverse[k][j];
+                }
+                vInverse[i][j] = -sum;
+            }
+        }
+
+        int lineCount = 0;
+        for(Nuclide nuclide: this.nuclides){
+            lineCount += nuclide.energies.length;
+        }
+        lineNuclide = new int[lineCount];
+        lineIntensity = new double[lineCount];
+        double[] energies = new double[lineCount];
+        int l = 0;
+        for(int i = 0; i < n; i++){
+            for(int k = 0; k < this.nuclides[i].energies.length; k++, l++){
+                lineNuclide[l] = i;
+                lineIntensity[l] = this.nuclides[i].intensities[k];
+                energies[l] = this.nuclides[i].energies[k];
+            }
+        }
+        double[] unit = new double[lineCount];
+        Arrays.fill(unit, 1);
+        lines = lineCount == 0 ? null : new PhotonSource(this.nuclides[0].name + " chain", 1, energies, unit);
+    }
+
+    //Chain where each nuclide decays entirely into the next
+    public static DecayChain linear(Nuclide... nuclides){
+        double[][] branching = new double[nuclides.length][nuclides.length];
+        for(int i = 0; i + 1 < nuclides.length; i++){
+            branching[i][i + 1] = 1;
+        }
+        return new DecayChain(Arrays.asList(nuclides), branching);
+    }
+
+    //Single decaying nuclide with the lines of a library isotope (SourceLibrary keys).
+    //"u238" returns the U-238 -> Th-234 -> Pa-234m -> U-234 ingrowth chain instead.
+    public static DecayChain forIsotope(String key){
+        if(key.equals("u238")) return uranium238();
+        PhotonSource source = SourceLibrary.createIsotopeSource(key, 1);
+        return linear(new Nuclide(source.name, SourceLibrary.getHalfLife(key), source.energies, source.intensities));
+    }
+
+    //U-238 through Pa-234m to U-234, with the UraniumSourceModel lines assigned to their emitters.
+    //Starting from pure U-238 the lines grow in over months; at equilibrium they match U238_LINES.
+    public static DecayChain uranium238(){
+        double[][] lines = UraniumSourceModel.U238_LINES;
+        double[] th234 = new double[4];
+        double[] th234Intensity = new double[4];
+        double[] pa234m = new double[lines.length - 4];
+        double[] pa234mIntensity = new double[lines.length - 4];
+        for(int l = 0; l < lines.length; l++){
+            //Th-234 emits the lines below 200 keV, Pa-234m the rest
+            if(l < 4){
+                th234[l] = lines[l][0]/1000;
+                th234Intensity[l] = lines[l][1];
+            }else{
+                pa234m[l - 4] = lines[l][0]/1000;
+                pa234mIntensity[l - 4] = lines[l][1];
+            }
+        }
+        return linear(new Nuclide("U-238", SourceLibrary.getHalfLife("u238")),
+                new Nuclide("Th-234", 24.10*SECONDS_PER_DAY, th234, th234Intensity),
+                new Nuclide("Pa-234m", 1.159*60, pa234m, pa234mIntensity),
+                new Nuclide("U-234", 2.455e5*SECONDS_PER_YEAR));
+    }
+
+    public int nuclideCount(){
+        return nuclides.length;
+    }
+
+    public Nuclide nuclide(int i){
+        return nuclides[i];
+    }
+
+    public int lineCount(){
+        return lineNuclide.length;
+    }
+
+    public double energy(int line){
+        return lines.energy(line);
+    }
+
+    //Index of the nuclide emitting a line
+    public int emitter(int line){
+        return lineNuclide[line];
+    }
+
+    //Solution for initial atom numbers per nuclide
+    public Solution fromAtoms(double[] atoms){
+        if(atoms.length != nuclides.length){
+            throw new IllegalArgumentException("Expected " + nuclides.length + " initial amounts.");
+        }
+        for(double a: atoms){
+            if(!(a >= 0) || Double.isInfinite(a)){
+                throw new IllegalArgumentException("Initial amounts must be finite and non-negative.");
+            }
+        }
+        return new Solution(atoms);
+    }
+
+    //Solution for initial activities per nuclide (Bq); stable nuclides start empty
+    public Solution fromActivities(double[] activities){
+        if(activities.length != nuclides.length){
+            throw new IllegalArgumentException("Expected " + nuclides.length + " initial amounts.");
+        }
+        double[] atoms = new double[activities.length];
+        for(int i = 0; i < atoms.length; i++){
+            if(lambda[i] == 0 && activities[i] != 0){
+                throw new IllegalArgumentException("Stable nuclide " + nuclides[i].name + " has no activity.");
+            }
+            atoms[i] = lambda[i] == 0 ? 0 : activities[i]/lambda[i];
+        }
+        return fromAtoms(atoms);
+    }
+
+    //Solution starting from the first nuclide alone with the given activity (Bq)
+    public Solution fromParentActivity(double activity){
+        double[] activities = new double[nuclides.length];
+        activities[0] = activity;
+        return fromActivities(activities);
+    }
+
+    //Chain evolution from one initial inventory, as sums of exp(-lambda_j t)
+    public final class Solution{
+        //activity_i(t) = sum_j activityCoefficient[i][j] exp(-lambda_j t)
+        final double[][] activityCoefficient;
+        //rate_l(t) = sum_j lineCoefficient[l][j] exp(-lambda_j t)
+        final double[][] lineCoefficient;
+
+        private Solution(double[] atoms){
+            int n = nuclides.length;
+            //c = V^-1 N(0)
+            double[] c = new double[n];
+            for(int j = 0; j < n; j++){
+                for(int k = 0; k <= j; k++){
+                    c[j] += vInverse[j][k]*atoms[k];
+                }
+            }
+            activityCoefficient = new double[n][n];
+            for(int i = 0; i < n; i++){
+                for(int j = 0; j <= i; j++){
+                    activityCoefficient[i][j] = lambda[i]*v[i][j]*c[j];
+                }
+            }
+            lineCoefficient = new double[lineNuclide.length][];
+            for(int l = 0; l < lineCoefficient.length; l++){
+                double[] a = activityCoefficient[lineNuclide[l]];
+                lineCoefficient[l] = new double[n];
+                for(int j = 0; j < n; j++){
+                    lineCoefficient[l][j] = lineIntensity[l]*a[j];
+                }
+            }
+        }
+
+        public DecayChain chain(){
+            return DecayChain.this;
+        }
+
+        //Activity (Bq) of nuclide i at time t (s)
+        public double activity(int i, double t){
+            return Math.max(0, dot(activityCoefficient[i], decay(t, new double[lambda.length])));
+        }
+
+        //Activities (Bq) of every nuclide at time t (s)
+        public void activities(double t, double[] out){
+            double[] decay = decay(t, new double[lambda.length]);
+            for(int i = 0; i < out.length; i++){
+                out[i] = Math.max(0, dot(activityCoefficient[i], decay));
+            }
+        }
+
+        //Photon emission rate (photons/s) of every chain line at time t (s)
+        public void lineRates(double t, double[] out){
+            double[] decay = decay(t, new double[lambda.length]);
+            for(int l = 0; l < out.length; l++){
+                out[l] = Math.max(0, dot(lineCoefficient[l], decay));
+            }
+        }
+
+        //Line rates over a timeline: rates[step][line]
+        public double[][] lineRates(double[] times){
+            double[][] rates = new double[times.length][lineNuclide.length];
+            double[] decay = new double[lambda.length];
+            for(int s = 0; s < times.length; s++){
+                decay(times[s], decay);
+                for(int l = 0; l < lineNuclide.length; l++){
+                    rates[s][l] = Math.max(0, dot(lineCoefficient[l], decay));
+                }
+            }
+            return rates;
+        }
+
+        //The chain's lines at time t (s) as a source with the total chain activity
+        public PhotonSource source(double t){
+            if(lines == null){
+                throw new IllegalStateException("The chain has no photon lines.");
+            }
+            double[] activities = new double[lambda.length];
+            activities(t, activities);
+            double total = 0;
+            for(double a: activities){
+                total += a;
+            }
+            double[] rates = new double[lineNuclide.length];
+            lineRates(t, rates);
+            double[] intensities = new double[rates.length];
+            for(int l = 0; l < rates.length; l++){
+                intensities[l] = total == 0 ? 0 : rates[l]/total;
+            }
+            String name = nuclides[0].name + " chain at " + t + " s";
+            return new PhotonSource(name, total, lines.energies, intensities);
+        }
+
+        //Detector response behind layers at a distance (cm), with or without buildup
+        public Response response(ArrayList<Layer> layers, double distance, boolean applyBuildup){
+            if(lines == null){
+                throw new IllegalStateException("The chain has no photon lines.");
+            }
+            SourceResult unit = SourceCalculator.computeResponse(lines, layers, distance, applyBuildup);
+            return new Response(this, unit, applyBuildup);
+        }
+
+        private double[] decay(double t, double[] out){
+            if(!(t >= 0) || Double.isInfinite(t)){
+                throw new IllegalArgumentException("Time must be finite and non-negative.");
+            }
+            for(int j = 0; j < out.length; j++){
+                out[j] = Math.exp(-lambda[j]*t);
+            }
+            return out;
+        }
+    }
+
+    //Flux from a Solution through a fixed shield: flux(t) = sum_j coefficient_j exp(-lambda_j t)
+    public static final class Response{
+        final Solution solution;
+        final SourceResult unit;
+        final boolean buildup;
+        final double[] coefficient;
+
+        private Response(Solution solution, SourceResult unit, boolean buildup){
+            this.solution = solution;
+            this.unit = unit;
+            this.buildup = buildup;
+            double[][] lineCoefficient = solution.lineCoefficient;
+            coefficient = new double[solution.chain().lambda.length];
+            for(int l = 0; l < lineCoefficient.length; l++){
+                //Flux per photon/s emitted on line l
+                double perPhoton = buildup ? unit.buildupFlux(l) : unit.uncollidedFlux(l);
+                for(int j = 0; j < coefficient.length; j++){
+                    coefficient[j] += perPhoton*lineCoefficient[l][j];
+                }
+            }
+        }
+
+        public boolean hasBuildup(){
+            return buildup;
+        }
+
+        //Flux (photons/cm^2/s) per photon/s emitted on a line
+        public double fluxPerPhoton(int line){
+            return buildup ? unit.buildupFlux(line) : unit.uncollidedFlux(line);
+        }
+
+        //Total flux (photons/cm^2/s) at the detector at time t (s)
+        public double flux(double t){
+            double[] decay = solution.decay(t, new double[coefficient.length]);
+            return Math.max(0, dot(coefficient, decay));
+        }
+
+        //Total flux over a timeline, written to out
+        public void flux(double[] times, double[] out){
+            double[] lambda = solution.chain().lambda;
+            for(int s = 0; s < times.length; s++){
+                double t = times[s];
+                if(!(t >= 0) || Double.isInfinite(t)){
+                    throw new IllegalArgumentException("Time must be finite and non-negative.");
+                }
+                double sum = 0;
+                for(int j = 0; j < coefficient.length; j++){
+                    sum += coefficient[j]*Math.exp(-lambda[j]*t);
+                }
+                out[s] = Math.max(0, sum);
+            }
+        }
+    }
+
+    private static double dot(double[] a, double[] b){
+        double sum = 0;
+        for(int j = 0; j < a.length; j++){
+            sum += a[j]*b[j];
+        }
+        return sum;
+    }
+}
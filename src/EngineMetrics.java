@@ -0,0 +1,269 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * EngineMetrics.java
+ *
+ * Low-overhead counters and latency histograms for the calculation hot paths
+ * (Physics, AttenuationTable, ShieldingCalculator, MaterialLibrary).
+ *
+ * - Counters are striped LongAdders, so concurrent threads do not contend on one cache line
+ * - Latencies go into lock-free log2 histograms (one AtomicLongArray bucket per power of two ns)
+ * - Recording is off by default and switched at runtime with setEnabled or through JMX. When off,
+ *   each hook costs one volatile read and a not-taken branch
+ *
+ * Metrics are exposed as the MBean ShieldAttenuation:type=EngineMetrics (see EngineMetricsMBean)
+ * and can be dumped periodically. configureFromSystemProperties registers the MBean, so recording
+ * can be switched on later over JMX even when the process starts with it off, and reads:
+ * - shield.metrics=true          start with recording on (default off)
+ * - shield.metrics.jmx=false     do not register the MBean
+ * - shield.metrics.dump=seconds  print a snapshot to stderr every that many seconds
+ */
+public final class EngineMetrics implements EngineMetricsMBean{
+
+    public static final String OBJECT_NAME = "ShieldAttenuation:type=EngineMetrics";
+    //Stack depths with their own histogram; deeper stacks share the last one
+    static final int MAX_DEPTH = 8;
+
+    //Read on every hook; everything else is only touched while recording
+    static volatile boolean enabled;
+
+    static final LongAdder MU_CALLS = new LongAdder();
+    static final LongAdder LINEAR_FALLBACKS = new LongAdder();
+    static final LongAdder OUT_OF_BOUNDS = new LongAdder();
+    static final LongAdder MATERIAL_LOOKUPS = new LongAdder();
+    static final LongAdder MATERIAL_MISSES = new LongAdder();
+    static final Histogram[] TRANSMISSION_BY_DEPTH = new Histogram[MAX_DEPTH + 1];
+
+    static{
+        for(int d = 0; d <= MAX_DEPTH; d++){
+            TRANSMISSION_BY_DEPTH[d] = new Histogram();
+        }
+    }
+
+    private static final EngineMetrics INSTANCE = new EngineMetrics();
+    private static ScheduledExecutorService dumper;
+
+    private EngineMetrics(){
+    }
+
+    //Lock-free latency histogram with power-of-two nanosecond buckets
+    static final class Histogram{
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos){
+            if(nanos < 0) nanos = 0;
+            //Bucket b holds [2^(b-1), 2^b) ns; bucket 0 holds 0 ns
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+        }
+
+        long count(){
+            return count.sum();
+        }
+
+        double meanNanos(){
+            long n = count.sum();
+            return n == 0 ? 0 : (double) totalNanos.sum()/n;
+        }
+
+        //Upper bound (ns) of the bucket containing the given quantile, 0 if empty
+        long quantileNanos(double q){
+            long n = 0;
+            long[] snapshot = new long[buckets.length()];
+            for(int b = 0; b < snapshot.length; b++){
+                snapshot[b] = buckets.get(b);
+                n += snapshot[b];
+            }
+            if(n == 0) return 0;
+            long rank = (long) Math.ceil(q*n);
+            long seen = 0;
+            for(int b = 0; b < snapshot.length; b++){
+                seen += snapshot[b];
+                if(seen >= rank) return b == 0 ? 0 : (b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+            }
+            return Long.MAX_VALUE;
+        }
+
+        void reset(){
+            for(int b = 0; b < buckets.length(); b++){
+                buckets.set(b, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+        }
+    }
+
+    public static EngineMetrics get(){
+        return INSTANCE;
+    }
+
+    public static boolean enabled(){
+        return enabled;
+    }
+
+    //Records the latency of one computeTransmission call through a stack of the given depth
+    static void recordTransmission(int depth, long nanos){
+        TRANSMISSION_BY_DEPTH[Math.min(depth, MAX_DEPTH)].record(nanos);
+    }
+
+    //Registers the MBean with the platform MBean server (no-op if already registered)
+    public static synchronized void register(){
+        try{
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!server.isRegistered(name)){
+                server.registerMBean(INSTANCE, name);
+            }
+        }catch(JMException e){
+            throw new IllegalStateException("Could not register " + OBJECT_NAME + ": " + e.getMessage(), e);
+        }
+    }
+
+    //Prints a snapshot to out every periodSeconds on a daemon thread, replacing any earlier dump schedule
+    public static synchronized void startDump(PrintStream out, long periodSeconds){
+        if(periodSeconds < 1){
+            throw new IllegalArgumentException("Dump period must be at least 1 second.");
+        }
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "engine-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.println(INSTANCE.snapshot()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopDump(){
+        if(dumper != null){
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    //Applies shield.metrics, shield.metrics.jmx and shield.metrics.dump (see the class comment)
+    public static void configureFromSystemProperties(){
+        enabled = Boolean.getBoolean("shield.metrics");
+        if(!"false".equalsIgnoreCase(System.getProperty("shield.metrics.jmx"))){
+            try{
+                register();
+            }catch(IllegalStateException e){
+                System.err.println(e.getMessage());
+            }
+        }
+        String period = System.getProperty("shield.metrics.dump");
+        if(period != null && !period.isEmpty()){
+            try{
+                startDump(System.err, Long.parseLong(period.trim()));
+            }catch(IllegalArgumentException e){
+                System.err.println("Ignoring shield.metrics.dump=" + period + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on){
+        enabled = on;
+    }
+
+    @Override
+    public long getMuCalls(){
+        return MU_CALLS.sum();
+    }
+
+    @Override
+    public long getLinearFallbacks(){
+        return LINEAR_FALLBACKS.sum();
+    }
+
+    @Override
+    public long getOutOfBounds(){
+        return OUT_OF_BOUNDS.sum();
+    }
+
+    @Override
+    public long getMaterialLookups(){
+        return MATERIAL_LOOKUPS.sum();
+    }
+
+    @Override
+    public long getMaterialMisses(){
+        return MATERIAL_MISSES.sum();
+    }
+
+    @Override
+    public long[] getTransmissionCountsByDepth(){
+        long[] counts = new long[MAX_DEPTH + 1];
+        for(int d = 0; d <= MAX_DEPTH; d++){
+            counts[d] = TRANSMISSION_BY_DEPTH[d].count();
+        }
+        return counts;
+    }
+
+    @Override
+    public double[] getTransmissionMeanNanosByDepth(){
+        double[] means = new double[MAX_DEPTH + 1];
+        for(int d = 0; d <= MAX_DEPTH; d++){
+            means[d] = TRANSMISSION_BY_DEPTH[d].meanNanos();
+        }
+        return means;
+    }
+
+    @Override
+    public long[] getTransmissionP50NanosByDepth(){
+        return quantiles(0.5);
+    }
+
+    @Override
+    public long[] getTransmissionP99NanosByDepth(){
+        return quantiles(0.99);
+    }
+
+    private static long[] quantiles(double q){
+        long[] values = new long[MAX_DEPTH + 1];
+        for(int d = 0; d <= MAX_DEPTH; d++){
+            values[d] = TRANSMISSION_BY_DEPTH[d].quantileNanos(q);
+        }
+        return values;
+    }
+
+    @Override
+    public String snapshot(){
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("engine metrics (%s): muCalls=%d linearFallbacks=%d outOfBounds=%d materialLookups=%d materialMisses=%d",
+                enabled ? "on" : "off", getMuCalls(), getLinearFallbacks(), getOutOfBounds(),
+                getMaterialLookups(), getMaterialMisses()));
+        for(int d = 0; d <= MAX_DEPTH; d++){
+            Histogram histogram = TRANSMISSION_BY_DEPTH[d];
+            long count = histogram.count();
+            if(count == 0) continue;
+            sb.append(String.format("%n  transmission depth %s%d: count=%d mean=%.0fns p50<=%dns p99<=%dns",
+                    d == MAX_DEPTH ? ">=" : "", d, count, histogram.meanNanos(),
+                    histogram.quantileNanos(0.5), histogram.quantileNanos(0.99)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset(){
+        MU_CALLS.reset();
+        LINEAR_FALLBACKS.reset();
+        OUT_OF_BOUNDS.reset();
+        MATERIAL_LOOKUPS.reset();
+        MATERIAL_MISSES.reset();
+        for(Histogram histogram: TRANSMISSION_BY_DEPTH){
+            histogram.reset();
+        }
+    }
+}
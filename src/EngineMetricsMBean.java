@@ -0,0 +1,43 @@
+/**
+ * EngineMetricsMBean.java
+ *
+ * JMX management interface of EngineMetrics, registered as
+ * ShieldAttenuation:type=EngineMetrics.
+ *
+ * Per-depth arrays are indexed by layer count (index 0 = empty stack); the last entry
+ * collects every deeper stack.
+ */
+public interface EngineMetricsMBean{
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    //Physics.getMu calls
+    long getMuCalls();
+
+    //Interpolation segments evaluated linearly because a tabulated value is zero or negative
+    long getLinearFallbacks();
+
+    //Energies outside a material's tabulated range
+    long getOutOfBounds();
+
+    //MaterialLibrary lookups and lookups that found no material
+    long getMaterialLookups();
+
+    long getMaterialMisses();
+
+    //ShieldingCalculator.computeTransmission calls by stack depth
+    long[] getTransmissionCountsByDepth();
+
+    double[] getTransmissionMeanNanosByDepth();
+
+    long[] getTransmissionP50NanosByDepth();
+
+    long[] getTransmissionP99NanosByDepth();
+
+    //Multi-line text of every counter and histogram
+    String snapshot();
+
+    void reset();
+}
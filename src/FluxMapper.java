@@ -0,0 +1,262 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * FluxMapper.java
+ *
+ * Uncollided point-source flux on a 2-D or 3-D detector mesh around a slab shield.
+ *
+ * Geometry:
+ * - Isotropic point source at the origin, slab layers perpendicular to the z axis starting at
+ *   z = shieldStart (cm) and stacked outward in list order, unbounded in x and y
+ * - The ray from the source to a detector point at distance r crosses layer i over the z interval
+ *   c_i = overlap of [0, z] with the layer, so its path length in the layer is c_i * r / z
+ *   (the thickness times the secant of the incidence angle for points behind the shield)
+ * - flux = sum_k S_k exp(-r * sum_i mu_ik c_i / z) / (4 pi r^2); points with z <= 0 are unshielded
+ * - The source point itself (r = 0) is rejected, for single points and for any mesh containing it
+ *
+ * mu_ik is taken once per layer and line from PhotonSource.mu. Within a mesh row z is fixed, so the
+ * per-line attenuation per unit path is computed once per row and every cell costs one sqrt and one
+ * exp per line.
+ *
+ * The mesh is cut into tiles of whole x-rows (about TILE_CELLS cells each) that are computed in
+ * parallel and written in raster order (x fastest, then y, then z) as they complete. Only a bounded
+ * window of tiles is held in memory, so map size is limited by the output file, not the heap.
+ *
+ * Binary raster (big-endian): magic "FMAP", version, nx, ny, nz (ints), x0, dx, y0, dy, z0, dz (doubles),
+ * then nx*ny*nz flux values (doubles). CSV raster: header x_cm,y_cm,z_cm,flux and one row per cell.
+ */
+public class FluxMapper{
+
+    //Output formats
+    public enum Format{ CSV, BINARY }
+
+    static final int MAGIC = 0x464d4150;
+    static final int VERSION = 1;
+    //Target cells per tile; tiles are always whole x-rows
+    static final int TILE_CELLS = 16384;
+
+    private final double[] lineRate;
+    //Per layer: z bounds and mu (1/cm) per line
+    private final double[] layerStart;
+    private final double[] layerEnd;
+    private final double[][] mu;
+
+    //Regular detector mesh; use n = 1 on an axis for a 2-D map
+    public static final class Grid{
+        final double x0, dx, y0, dy, z0, dz;
+        final int nx, ny, nz;
+
+        public Grid(double x0, double dx, int nx, double y0, double dy, int ny, double z0, double dz, int nz){
+            if(nx < 1 || ny < 1 || nz < 1){
+                throw new IllegalArgumentException("Mesh dimensions must be at least 1.");
+            }
+            for(double value: new double[]{x0, dx, y0, dy, z0, dz}){
+                if(!Double.isFinite(value)){
+                    throw new IllegalArgumentException("Mesh origin and spacing must be finite.");
+                }
+            }
+            this.x0 = x0;
+            this.dx = dx;
+            this.nx = nx;
+            this.y0 = y0;
+            this.dy = dy;
+            this.ny = ny;
+            this.z0 = z0;
+            this.dz = dz;
+            this.nz = nz;
+            //A cell at the source has r = 0 and infinite flux
+            if(reachesZero(x0, dx, nx) && reachesZero(y0, dy, ny) && reachesZero(z0, dz, nz)){
+                throw new IllegalArgumentException("Mesh contains the source point; detector distance must be greater than zero.");
+            }
+        }
+
+        //True if some coordinate origin + i*step (0 <= i < n) squares to zero, as the raster computes it
+        private static boolean reachesZero(double origin, double step, int n){
+            long nearest = step == 0 ? 0 : Math.round(-origin/step);
+            for(long i = nearest - 1; i <= nearest + 1; i++){
+                if(i < 0 || i >= n) continue;
+                double c = origin + i*step;
+                if(c*c == 0) return true;
+            }
+            return false;
+        }
+
+        public long cellCount(){
+            return (long) nx*ny*nz;
+        }
+    }
+
+    //Cells written and wall time
+    public static final class Summary{
+        final long cells;
+        final long elapsedNanos;
+
+        Summary(long cells, long elapsedNanos){
+            this.cells = cells;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long cells(){
+            return cells;
+        }
+
+        public long elapsedNanos(){
+            return elapsedNanos;
+        }
+    }
+
+    //Source at the origin, shield layers starting at z = shieldStart (cm) and stacked along +z
+    public FluxMapper(PhotonSource source, List<Layer> layers, double shieldStart){
+        if(!(shieldStart >= 0) || Double.isInfinite(shieldStart)){
+            throw new IllegalArgumentException("Shield start cannot be negative.");
+        }
+        lineRate = new double[source.lineCount()];
+        for(int k = 0; k < lineRate.length; k++){
+            lineRate[k] = source.photonRate(k);
+        }
+        layerStart = new double[layers.size()];
+        layerEnd = new double[layers.size()];
+        mu = new double[layers.size()][];
+        double z = shieldStart;
+        for(int i = 0; i < layers.size(); i++){
+            Layer layer = layers.get(i);
+            if(!(layer.thickness >= 0)){
+                throw new IllegalArgumentException("Thickness cannot be negative.");
+            }
+            layerStart[i] = z;
+            z += layer.thickness;
+            layerEnd[i] = z;
+            mu[i] = source.mu(layer.material);
+        }
+    }
+
+    //Flux (photons/cm^2/s) at one detector point (cm)
+    public double flux(double x, double y, double z){
+        double r = Math.sqrt(x*x + y*y + z*z);
+        if(!(r > 0)){
+            throw new IllegalArgumentException("Detector distance must be greater than zero.");
+        }
+        double[] attenuation = new double[lineRate.length];
+        attenuationPerPath(z, attenuation);
+        return cellFlux(r, attenuation);
+    }
+
+    //Maps the grid to out using the given number of worker threads; out is flushed but not closed
+    public Summary map(Grid grid, OutputStream out, Format format, int threads) throws IOException{
+        if(threads < 1){
+            throw new IllegalArgumentException("Thread count must be at least 1.");
+        }
+        long start = System.nanoTime();
+        BufferedOutputStream stream = new BufferedOutputStream(out, 1 << 16);
+        writeHeader(grid, stream, format);
+        long rows = (long) grid.ny*grid.nz;
+        int rowsPerTile = (int) Math.max(1, Math.min(rows, TILE_CELLS/grid.nx));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "flux-mapper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try{
+            //Tiles in flight are bounded, so memory stays flat however large the mesh
+            ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+            int maxInFlight = 4*threads;
+            for(long row = 0; row < rows || !window.isEmpty(); ){
+                while(row < rows && window.size() < maxInFlight){
+                    long first = row;
+                    int count = (int) Math.min(rowsPerTile, rows - row);
+                    window.add(pool.submit(() -> tile(grid, first, count, format)));
+                    row += count;
+                }
+                stream.write(await(window.poll()));
+            }
+        }finally{
+            pool.shutdownNow();
+        }
+        stream.flush();
+        return new Summary(grid.cellCount(), System.nanoTime() - start);
+    }
+
+    //Computes rows [first, first + count) of the raster and encodes them
+    private byte[] tile(Grid grid, long first, int count, Format format){
+        double[] attenuation = new double[lineRate.length];
+        double[] flux = new double[grid.nx];
+        ByteBuffer binary = format == Format.BINARY ? ByteBuffer.allocate(8*grid.nx*count) : null;
+        StringBuilder csv = format == Format.CSV ? new StringBuilder(40*grid.nx*count) : null;
+        for(long row = first; row < first + count; row++){
+            double y = grid.y0 + (row%grid.ny)*grid.dy;
+            double z = grid.z0 + (row/grid.ny)*grid.dz;
+            attenuationPerPath(z, attenuation);
+            double yz2 = y*y + z*z;
+            for(int ix = 0; ix < grid.nx; ix++){
+                double x = grid.x0 + ix*grid.dx;
+                flux[ix] = cellFlux(Math.sqrt(x*x + yz2), attenuation);
+            }
+            if(binary != null){
+                binary.asDoubleBuffer().put(flux);
+                binary.position(binary.position() + 8*flux.length);
+            }else{
+                for(int ix = 0; ix < grid.nx; ix++){
+                    csv.append(grid.x0 + ix*grid.dx).append(',').append(y).append(',').append(z).append(',')
+                            .append(flux[ix]).append('\n');
+                }
+            }
+        }
+        return binary != null ? binary.array() : csv.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    //Per-line attenuation per unit path length for rays ending at height z: sum_i mu_ik c_i / z
+    private void attenuationPerPath(double z, double[] attenuation){
+        Arrays.fill(attenuation, 0);
+        if(!(z > 0)) return;
+        for(int i = 0; i < mu.length; i++){
+            double crossed = Math.min(z, layerEnd[i]) - layerStart[i];
+            if(!(crossed > 0)) continue;
+            double fraction = crossed/z;
+            double[] mui = mu[i];
+            for(int k = 0; k < attenuation.length; k++){
+                attenuation[k] += mui[k]*fraction;
+            }
+        }
+    }
+
+    private double cellFlux(double r, double[] attenuation){
+        double rate = 0;
+        for(int k = 0; k < attenuation.length; k++){
+            rate += lineRate[k]*Math.exp(-attenuation[k]*r);
+        }
+        return rate/(4*Math.PI*r*r);
+    }
+
+    private static void writeHeader(Grid grid, OutputStream out, Format format) throws IOException{
+        if(format == Format.CSV){
+            out.write("x_cm,y_cm,z_cm,flux\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(grid.nx);
+        data.writeInt(grid.ny);
+        data.writeInt(grid.nz);
+        for(double value: new double[]{grid.x0, grid.dx, grid.y0, grid.dy, grid.z0, grid.dz}){
+            data.writeDouble(value);
+        }
+    }
+
+    private static byte[] await(Future<byte[]> tile) throws IOException{
+        try{
+            return tile.get();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Flux mapping interrupted.");
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+}
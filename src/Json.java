@@ -0,0 +1,233 @@
+import java.util.*;
+
+/**
+ * Json.java
+ *
+ * Minimal JSON reader used for batch input lines and scenario files.
+ *
+ * Values map to Java types as:
+ * - object -> LinkedHashMap<String, Object> (key order kept)
+ * - array -> ArrayList<Object>
+ * - number -> Double
+ * - string -> String, true/false -> Boolean, null -> null
+ *
+ * Malformed input throws IllegalArgumentException with the character position.
+ */
+public class Json{
+    private final String text;
+    private int pos;
+
+    private Json(String text){
+        this.text = text;
+    }
+
+    //Parses a complete JSON document
+    public static Object parse(String text){
+        Json parser = new Json(text);
+        parser.skipWhitespace();
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if(parser.pos != text.length()){
+            throw parser.error("Unexpected trailing content");
+        }
+        return value;
+    }
+
+    //Parses a document that must be a JSON object
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text){
+        Object value = parse(text);
+        if(!(value instanceof Map)){
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    //Appends a JSON string literal with escaping
+    public static void writeString(StringBuilder out, String value){
+        out.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            switch(c){
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        out.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private Object readValue(){
+        if(pos >= text.length()){
+            throw error("Unexpected end of input");
+        }
+        char c = text.charAt(pos);
+        switch(c){
+            case '{': return readObject();
+            case '[': return readArray();
+            case '"': return readString();
+            case 't': return readLiteral("true", Boolean.TRUE);
+            case 'f': return readLiteral("false", Boolean.FALSE);
+            case 'n': return readLiteral("null", null);
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')){
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject(){
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if(peek() == '}'){
+            pos++;
+            return map;
+        }
+        while(true){
+            skipWhitespace();
+            if(peek() != '"'){
+                throw error("Expected a string key");
+            }
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if(map.containsKey(key)){
+                throw error("Duplicate key \"" + key + "\"");
+            }
+            map.put(key, readValue());
+            skipWhitespace();
+            char c = next();
+            if(c == '}') return map;
+            if(c != ','){
+                pos--;
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray(){
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if(peek() == ']'){
+            pos++;
+            return list;
+        }
+        while(true){
+            skipWhitespace();
+            list.add(readValue());
+            skipWhitespace();
+            char c = next();
+            if(c == ']') return list;
+            if(c != ','){
+                pos--;
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString(){
+        pos++;
+        StringBuilder out = new StringBuilder();
+        while(true){
+            char c = next();
+            if(c == '"') return out.toString();
+            if(c == '\\'){
+                char e = next();
+                switch(e){
+                    case '"': out.append('"'); break;
+                    case '\\': out.append('\\'); break;
+                    case '/': out.append('/'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    case 't': out.append('\t'); break;
+                    case 'u':
+                        if(pos + 4 > text.length()) throw error("Truncated unicode escape");
+                        try{
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        }catch(NumberFormatException ex){
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape '\\" + e + "'");
+                }
+            }else if(c < 0x20){
+                throw error("Control character in string");
+            }else{
+                out.append(c);
+            }
+        }
+    }
+
+    private Double readNumber(){
+        int start = pos;
+        if(peek() == '-') pos++;
+        while(pos < text.length()){
+            char c = text.charAt(pos);
+            if((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-'){
+                pos++;
+            }else{
+                break;
+            }
+        }
+        try{
+            return Double.valueOf(text.substring(start, pos));
+        }catch(NumberFormatException ex){
+            pos = start;
+            throw error("Invalid number");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value){
+        if(!text.startsWith(literal, pos)){
+            throw error("Invalid literal");
+        }
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace(){
+        while(pos < text.length()){
+            char c = text.charAt(pos);
+            if(c != ' ' && c != '\t' && c != '\n' && c != '\r') break;
+            pos++;
+        }
+    }
+
+    private char peek(){
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private char next(){
+        if(pos >= text.length()){
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(pos++);
+    }
+
+    private void expect(char c){
+        if(next() != c){
+            pos--;
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException(message + " at position " + pos + ".");
+    }
+}
@@ -8,29 +8,41 @@
  * - Energy dependent mass attenuation coefficients (mu/p)
  *   - Optionally, materials can also have
  *     photoelectric, compton scattering, and pair production components.
+ *
+ * Materials are immutable: the constructors copy the attenuation arrays,
+ * so a single instance can be shared between threads and callers.
  */
 public class Material{
     //Material name
-    String name;
+    final String name;
     //Material density in g/cm^3
-    double density;
+    final double density;
     //Material energies corresponding to attenuation data (MeV)
-    double[] energy;
+    final double[] energy;
     //Total mass attenuation coefficients (cm^2/g)
-    double[] muOverP;
+    final double[] muOverP;
     //Optional components arrays
-    double[] muPhotoOverP;
-    double[] muComptonOverP;
-    double[] muPairOverP;
+    final double[] muPhotoOverP;
+    final double[] muComptonOverP;
+    final double[] muPairOverP;
+    //Compiled attenuation table, built on first use by AttenuationTable.of
+    AttenuationTable table;
+    //G-P buildup table, resolved on first use by Buildup (by key, then cached per instance)
+    Buildup.Table buildup;
+    //MaterialLibrary key when built by one of its create methods, otherwise null
+    String libraryKey;
 
     //Constructor for materials will full component data
     public Material(String name, double density, double[] energy, double[] muPhotoOverP, double[] muComptonOverP, double[] muPairOverP){
         this.name = name;
         this.density = density;
-        this.energy = energy;
-        this.muPhotoOverP = muPhotoOverP;
-        this.muComptonOverP = muComptonOverP;
-        this.muPairOverP = muPairOverP;
+        this.energy = copy(energy);
+        this.muPhotoOverP = copy(muPhotoOverP);
+        this.muComptonOverP = copy(muComptonOverP);
+        this.muPairOverP = copy(muPairOverP);
+
+        // total array remains null
+        this.muOverP = null;
     }
 
     //Constructor for materials with only total mass attenuation
@@ -40,13 +52,18 @@ public class Material{
 
         this.name = name;
         this.density = density;
-        this.energy = energy;
+        this.energy = copy(energy);
 
-        this.muOverP = muOverP;
+        this.muOverP = copy(muOverP);
 
         // component arrays remain null
         this.muPhotoOverP = null;
         this.muComptonOverP = null;
         this.muPairOverP = null;
     }
+
+    //Copies an attenuation array so later changes by the caller cannot alter the material
+    private static double[] copy(double[] values){
+        return values == null ? null : values.clone();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+/**
+ * MaterialCostLibrary.java
+ *
+ * Relative material cost indices used by design optimization.
+ *
+ * Values match material_cost_library.py. They are simplified comparative indices with
+ * ordinary concrete assigned 1.0, not market prices.
+ */
+public class MaterialCostLibrary{
+
+    //Material keys and their relative cost index, in the order of material_cost_library.py
+    private static final String[] KEYS = {"water", "concrete_ordinary", "concrete_barite", "polyethylene",
+            "lead", "aluminum", "tin", "copper", "tungsten"};
+    private static final double[] INDICES = {0.25, 1.0, 1.6, 2.0, 3.0, 4.0, 7.0, 8.0, 25.0};
+
+    //Returns the relative cost index for a material key, or NaN if no cost data exist
+    public static double getRelativeCostIndex(String key){
+        if(key == null) return Double.NaN;
+        for(int i = 0; i < KEYS.length; i++){
+            if(KEYS[i].equals(key)) return INDICES[i];
+        }
+        return Double.NaN;
+    }
+
+    //Relative cost index per area = mass per area (g/cm^2) * relative cost index
+    public static double relativeCostPerArea(double massPerArea, double relativeCostIndex){
+        if(massPerArea < 0){
+            throw new IllegalArgumentException("Mass per area cannot be negative.");
+        }
+        if(!(relativeCostIndex > 0)){
+            throw new IllegalArgumentException("Relative material cost index must be greater than zero.");
+        }
+        return massPerArea*relativeCostIndex;
+    }
+}
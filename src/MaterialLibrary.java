@@ -5,43 +5,160 @@ import java.util.*;
  *
  * Provides predefined shielding materials with photon attenuation data.
  *
+ * Materials are built once into a shared, immutable registry keyed by menu
+ * index (1-13) and by the stable string keys used on the Python side.
+ * The create methods still return a fresh Material on every call.
+ *
+ * If the system property shield.xsdb names a CrossSectionDatabase file, its tables replace the
+ * built-in ones with the same key and its other materials are available by key.
+ *
  * Source:
  *  - NIST XCOM Photon Cross Section Database
  *
  */
 public class MaterialLibrary{
 
-    //Returns a Material object based on user selection
+    //Stable string keys matching the Python material library, in menu order (index 1 = "lead")
+    private static final String[] KEYS = {"lead", "concrete_ordinary", "concrete_barite", "aluminum",
+            "water", "tungsten", "bismuth", "copper", "tin", "polyethylene", "graphite",
+            "leaded_glass", "depleted_uranium"};
+
+    //Returns a Material object based on user selection.
+    //Materials are built once and shared; returns null for an unknown choice.
     public static Material getMaterial(int choice){
-        if(choice == 1){
-            return createLead();
-        }else if(choice == 2){
-            return createConcreteO();
-        }else if(choice == 3){
-            return createConcreteB();
-        }else if(choice == 4){
-            return createAluminum();
-        }else if(choice == 5){
-            return createWater();
-        }else if(choice == 6){
-            return createTungsten();
-        }else if(choice == 7){
-            return createBismuth();
-        }else if(choice == 8){
-            return createCopper();
-        }else if(choice == 9){
-            return createTin();
-        }else if(choice == 10){
-            return createPolyethylene();
-        }else if(choice == 11){
-            return createGraphite();
-        }else if(choice == 12){
-            return createLeadedGlass();
-        }else if(choice == 13){
-            return createDepletedUranium();
-        }else{
+        Material[] byIndex = Registry.BY_INDEX;
+        if(EngineMetrics.enabled){
+            EngineMetrics.MATERIAL_LOOKUPS.increment();
+            if(choice < 1 || choice > byIndex.length) EngineMetrics.MATERIAL_MISSES.increment();
+        }
+        if(choice < 1 || choice > byIndex.length){
+            return null;
+        }
+        return byIndex[choice - 1];
+    }
+
+    //Returns the shared Material for a stable key such as "lead" or "concrete_ordinary", or null if unknown
+    public static Material getMaterial(String key){
+        Material mat = Registry.BY_KEY.get(key);
+        if(mat == null && key != null && Database.INSTANCE != null){
+            mat = Database.INSTANCE.getMaterial(key);
+        }
+        if(EngineMetrics.enabled){
+            EngineMetrics.MATERIAL_LOOKUPS.increment();
+            if(mat == null) EngineMetrics.MATERIAL_MISSES.increment();
+        }
+        return mat;
+    }
+
+    //Returns the stable key for a menu index, or null if the index is unknown
+    public static String getKey(int choice){
+        if(choice < 1 || choice > KEYS.length){
             return null;
         }
+        return KEYS[choice - 1];
+    }
+
+    //Returns the stable key for a library material, or null if it is not a library material.
+    //Library materials are those built by the create methods and those handed out by the database;
+    //other instances (mixtures, user-built materials) get no key even if their name matches.
+    public static String getKey(Material mat){
+        if(mat.libraryKey != null) return mat.libraryKey;
+        return Database.INSTANCE == null ? null : Database.INSTANCE.getKey(mat);
+    }
+
+    //True for the shared instances handed out by getMaterial (built-in or database), false for fresh
+    //create results and any other material
+    static boolean isShared(Material mat){
+        for(Material shared: Registry.BY_INDEX){
+            if(shared == mat) return true;
+        }
+        return Database.INSTANCE != null && Database.INSTANCE.getKey(mat) != null;
+    }
+
+    //Returns the menu index for a stable key, or -1 if the key is unknown
+    public static int indexOf(String key){
+        for(int i = 0; i < KEYS.length; i++){
+            if(KEYS[i].equals(key)) return i + 1;
+        }
+        return -1;
+    }
+
+    //Number of materials in the library (valid menu indices are 1..size())
+    public static int size(){
+        return KEYS.length;
+    }
+
+    //Optional cross-section database named by the shield.xsdb system property, mapped on first use
+    private static final class Database{
+        static final CrossSectionDatabase INSTANCE = open();
+
+        private static CrossSectionDatabase open(){
+            String file = System.getProperty("shield.xsdb");
+            if(file == null || file.isEmpty()) return null;
+            try{
+                return CrossSectionDatabase.open(java.nio.file.Paths.get(file));
+            }catch(java.io.IOException | IllegalArgumentException e){
+                System.err.println("Ignoring cross-section database " + file + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    //Builds every material exactly once, on first use. Class initialization makes this thread-safe.
+    private static final class Registry{
+        static final Material[] BY_INDEX = new Material[KEYS.length];
+        static final Map<String, Material> BY_KEY;
+
+        static{
+            Map<String, Material> byKey = new HashMap<>();
+            for(int i = 0; i < KEYS.length; i++){
+                BY_INDEX[i] = createBuiltIn(i + 1);
+                //Compile attenuation tables up front so lookups never build them
+                AttenuationTable.of(BY_INDEX[i]);
+                //Database tables take precedence over the built-in arrays; a bad entry keeps the built-in table
+                BY_INDEX[i] = fromDatabase(KEYS[i], BY_INDEX[i]);
+                byKey.put(KEYS[i], BY_INDEX[i]);
+            }
+            BY_KEY = Collections.unmodifiableMap(byKey);
+        }
+
+        private static Material fromDatabase(String key, Material builtIn){
+            if(Database.INSTANCE == null) return builtIn;
+            try{
+                Material stored = Database.INSTANCE.getMaterial(key);
+                return stored == null ? builtIn : stored;
+            }catch(RuntimeException e){
+                System.err.println("Ignoring cross-section database entry " + key + ": " + e.getMessage());
+                return builtIn;
+            }
+        }
+    }
+
+    //Builds a fresh Material from the built-in tables for a menu index, ignoring any database
+    static Material createBuiltIn(int choice){
+        switch(choice){
+            case 1: return createLead();
+            case 2: return createConcreteO();
+            case 3: return createConcreteB();
+            case 4: return createAluminum();
+            case 5: return createWater();
+            case 6: return createTungsten();
+            case 7: return createBismuth();
+            case 8: return createCopper();
+            case 9: return createTin();
+            case 10: return createPolyethylene();
+            case 11: return createGraphite();
+            case 12: return createLeadedGlass();
+            case 13: return createDepletedUranium();
+            default:
+                throw new IllegalArgumentException("Invalid material choice: " + choice);
+        }
+    }
+
+    //Tags a freshly built material with the key of its menu index
+    private static Material keyed(int choice, Material mat){
+        mat.libraryKey = KEYS[choice - 1];
+        return mat;
     }
 
     //Methods define attenuation data from NIST XCOM
@@ -109,26 +226,13 @@ public class MaterialLibrary{
         };
 
         //Handling for duplicate energies
+        int[] keep = uniqueEnergyIndices(energyRaw);
+        double[] energy = select(energyRaw, keep);
+        double[] muPhoto = select(muPhotoRaw, keep);
+        double[] muCompton = select(muComptonRaw, keep);
+        double[] muPair = select(muPairRaw, keep);
 
-        List<Double> eList = new ArrayList<>();
-        List<Double> pList = new ArrayList<>();
-        List<Double> cList = new ArrayList<>();
-        List<Double> pairList = new ArrayList<>();
-
-        for (int i = 0; i < energyRaw.length; i++) {
-            if (i > 0 && energyRaw[i] == energyRaw[i - 1]) continue; // skip duplicate energy
-            eList.add(energyRaw[i]);
-            pList.add(muPhotoRaw[i]);
-            cList.add(muComptonRaw[i]);
-            pairList.add(muPairRaw[i]);
-        }
-
-        double[] energy = eList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muPhoto = pList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muCompton = cList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muPair = pairList.stream().mapToDouble(Double::doubleValue).toArray();
-
-        return new Material("Lead", 11.34, energy, muPhoto, muCompton, muPair);
+        return keyed(1, new Material("Lead", 11.34, energy, muPhoto, muCompton, muPair));
     }
     public static Material createConcreteO() {
         double[] energy = {0.001000, 0.001035, 0.001072, 0.0011828, 0.001305, 0.0015, 0.0015596, 0.0016935,
@@ -145,7 +249,7 @@ public class MaterialLibrary{
 
         double density = 2.4;
 
-        return new Material("Concrete (Ordinary)", density, energy, muOverP);
+        return keyed(2, new Material("Concrete (Ordinary)", density, energy, muOverP));
     }//test
     public static Material createConcreteB() {
         double[] energy = {0.001000, 0.001031, 0.001062, 0.0010988, 0.0011367, 0.001212, 0.001293,
@@ -165,7 +269,7 @@ public class MaterialLibrary{
                 0.03676, 0.03388, 0.03240, 0.03162, 0.03116, 0.03138};
         double density = 3.5;
 
-        return new Material("Concrete (Barite, Type BA)", density, energy, muOverP);
+        return keyed(3, new Material("Concrete (Barite, Type BA)", density, energy, muOverP));
     }
 
     public static Material createAluminum() {
@@ -182,7 +286,7 @@ public class MaterialLibrary{
 
         double density = 2.7;
 
-        return new Material("Aluminum", density, energy, muOverP);
+        return keyed(4, new Material("Aluminum", density, energy, muOverP));
     }
 
     public static Material createWater() {
@@ -199,7 +303,7 @@ public class MaterialLibrary{
 
         double density = 1.0;
 
-        return new Material("Water (Liquid)", density, energy, muOverP);
+        return keyed(5, new Material("Water (Liquid)", density, energy, muOverP));
     }
 
     public static Material createTungsten() {
@@ -218,7 +322,7 @@ public class MaterialLibrary{
 
         double density = 19.254;
 
-        return new Material("Tungsten", density, energy, muOverP);
+        return keyed(6, new Material("Tungsten", density, energy, muOverP));
     }
 
     public static Material createBismuth() {
@@ -254,25 +358,13 @@ public class MaterialLibrary{
                 2.179E-02,2.558E-02,2.893E-02,3.193E-02,3.467E-02,3.717E-02
         };
 
-        List<Double> eList = new ArrayList<>();
-        List<Double> pList = new ArrayList<>();
-        List<Double> cList = new ArrayList<>();
-        List<Double> pairList = new ArrayList<>();
-
-        for (int i = 0; i < energyRaw.length; i++) {
-            if (i > 0 && energyRaw[i] == energyRaw[i - 1]) continue; // skip duplicate energy
-            eList.add(energyRaw[i]);
-            pList.add(muPhotoRaw[i]);
-            cList.add(muComptonRaw[i]);
-            pairList.add(muPairRaw[i]);
-        }
-
-        double[] energy = eList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muPhoto = pList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muCompton = cList.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] muPair = pairList.stream().mapToDouble(Double::doubleValue).toArray();
+        int[] keep = uniqueEnergyIndices(energyRaw);
+        double[] energy = select(energyRaw, keep);
+        double[] muPhoto = select(muPhotoRaw, keep);
+        double[] muCompton = select(muComptonRaw, keep);
+        double[] muPair = select(muPairRaw, keep);
 
-        return new Material("Bismuth", 9.78, energy, muPhoto, muCompton, muPair); // 9.78 g/cm3 is the density of Bismuth
+        return keyed(7, new Material("Bismuth", 9.78, energy, muPhoto, muCompton, muPair)); // 9.78 g/cm3 is the density of Bismuth
     }
     public static Material createCopper(){
         double[] energy = {0.001000, 0.00104695, 0.00109610, 0.0015, 0.002, 0.003, 0.004, 0.005, 0.006, 0.008,
@@ -283,7 +375,7 @@ public class MaterialLibrary{
                 278.4, 215.9, 74.05, 33.79, 10.92, 4.862, 2.613, 1.593, 0.763, 0.4584,
                 0.2217, 0.1559, 0.1119, 0.09413, 0.08362, 0.07625, 0.06605, 0.05901, 0.05261, 0.04803,
                 0.04205, 0.03599, 0.03318, 0.03177, 0.03108, 0.03074, 0.03103};
-        return new Material("Copper", 8.96, energy, muOverP);
+        return keyed(8, new Material("Copper", 8.96, energy, muOverP));
     }
 
     public static Material createTin(){
@@ -295,7 +387,7 @@ public class MaterialLibrary{
                 529.4, 250, 138.4, 46.64, 21.46, 43.6, 41.21, 19.42, 10.7, 6.564,
                 3.029, 1.676, 0.6091, 0.326, 0.1639, 0.1156, 0.09374, 0.08113, 0.06662, 0.058,
                 0.05095, 0.04638, 0.04112, 0.03686, 0.03561, 0.03548, 0.03583, 0.03724, 0.03895};
-        return new Material("Tin", 7.31, energy, muOverP);
+        return keyed(9, new Material("Tin", 7.31, energy, muOverP));
     }
 
     public static Material createPolyethylene(){
@@ -307,7 +399,7 @@ public class MaterialLibrary{
                 0.4315, 0.2706, 0.2275, 0.2084, 0.197, 0.1823, 0.1719, 0.1534, 0.1402, 0.1217,
                 0.1089, 0.09947, 0.09198, 0.08078, 0.07262, 0.06495, 0.0591, 0.05064, 0.04045, 0.03444,
                 0.03045, 0.0276, 0.02383, 0.02145};
-        return new Material("Polyethylene", 0.94, energy, muOverP);
+        return keyed(10, new Material("Polyethylene", 0.94, energy, muOverP));
     }
 
     public static Material createGraphite(){
@@ -319,7 +411,7 @@ public class MaterialLibrary{
                 0.442, 0.2562, 0.2076, 0.1871, 0.1753, 0.161, 0.1514, 0.1347, 0.1229, 0.1066,
                 0.09546, 0.08715, 0.08058, 0.07076, 0.06361, 0.0569, 0.05179, 0.04442, 0.03562, 0.03047,
                 0.02708, 0.02469, 0.02154, 0.01959};
-        return new Material("Graphite", 2.26, energy, muOverP);
+        return keyed(11, new Material("Graphite", 2.26, energy, muOverP));
     }
 
     public static Material createLeadedGlass(){
@@ -331,7 +423,7 @@ public class MaterialLibrary{
                 802.6, 1488, 1641, 1596, 1390, 644.2, 342.3, 213.8, 106.5, 59.98,
                 20.85, 9.81, 3.51, 1.835, 1.091, 0.7518, 0.4436, 0.2799, 0.1299, 0.07644,
                 0.03799, 0.02209, 0.01527, 0.01172, 0.007963, 0.006061};
-        return new Material("Leaded Glass", 5.05, energy, muOverP);
+        return keyed(12, new Material("Leaded Glass", 5.05, energy, muOverP));
     }
 
     public static Material createDepletedUranium() {
@@ -354,10 +446,26 @@ public class MaterialLibrary{
 
         double density = 18.95;
 
-        return new Material("Depleted Uranium (DU)", density, energy, muOverP);
+        return keyed(13, new Material("Depleted Uranium (DU)", density, energy, muOverP));
     }
 
+    //Returns the indices of energies that are not repeats of the previous entry (skips duplicate energies)
+    private static int[] uniqueEnergyIndices(double[] energyRaw){
+        int[] keep = new int[energyRaw.length];
+        int n = 0;
+        for(int i = 0; i < energyRaw.length; i++){
+            if(i > 0 && energyRaw[i] == energyRaw[i - 1]) continue; // skip duplicate energy
+            keep[n++] = i;
+        }
+        return Arrays.copyOf(keep, n);
+    }
 
-
-
+    //Copies the values at the given indices into a new array
+    private static double[] select(double[] values, int[] indices){
+        double[] out = new double[indices.length];
+        for(int i = 0; i < indices.length; i++){
+            out[i] = values[indices[i]];
+        }
+        return out;
+    }
 }
@@ -0,0 +1,198 @@
+import java.util.*;
+
+/**
+ * Mixture.java
+ *
+ * Compiles a mixture or compound (borated polyethylene, custom concrete recipes, ...) from mass
+ * fractions of existing materials or elements into an ordinary total-attenuation Material.
+ *
+ * Mixture rule: (mu/p)_mix(E) = sum_i w_i (mu/p)_i(E)
+ *
+ * The constituent tables are resampled once onto a merged energy grid:
+ * - Every constituent energy inside the common range is kept
+ * - Absorption edges (repeated energies in a constituent table) become a repeated energy in the
+ *   mixture table holding the values just below and just above the edge
+ * - Intervals are bisected in log(E) until the mixture's log-log interpolant is within
+ *   REFINE_TOLERANCE of the exact sum, so one interpolation reproduces the per-constituent sum
+ *
+ * The compiled Material evaluates through Physics.getMu with a single table lookup, so a mixture
+ * costs the same as a pure material. Constituents can come from MaterialLibrary, including materials
+ * of a cross-section database loaded through shield.xsdb (for example XCOM elements).
+ */
+public class Mixture{
+
+    //Relative accuracy of the resampled mixture table against the exact constituent sum
+    static final double REFINE_TOLERANCE = 1e-6;
+    //Maximum bisection depth per original interval
+    private static final int MAX_DEPTH = 12;
+    //Allowed deviation of the mass fractions from a sum of 1 before they are rejected
+    private static final double FRACTION_SUM_TOLERANCE = 0.01;
+
+    //Compiles a mixture of library materials given by key, e.g. {"polyethylene": 0.95, "boron": 0.05}
+    public static Material compile(String name, double density, Map<String, Double> massFractions){
+        Material[] constituents = new Material[massFractions.size()];
+        double[] fractions = new double[massFractions.size()];
+        int i = 0;
+        for(Map.Entry<String, Double> entry: massFractions.entrySet()){
+            constituents[i] = MaterialLibrary.getMaterial(entry.getKey());
+            if(constituents[i] == null){
+                throw new IllegalArgumentException("Unknown material key: " + entry.getKey());
+            }
+            fractions[i] = entry.getValue();
+            i++;
+        }
+        return compile(name, density, constituents, fractions);
+    }
+
+    //Compiles a mixture of constituents with the given mass fractions (normalized to a sum of 1)
+    public static Material compile(String name, double density, Material[] constituents, double[] massFractions){
+        if(!(density > 0)){
+            throw new IllegalArgumentException("Mixture density must be greater than zero.");
+        }
+        return weightedSum(name, density, constituents, normalize(constituents, massFractions), REFINE_TOLERANCE);
+    }
+
+    //Resamples sum_i w[i] (mu/p)_i(E) of the parts onto their merged grid, refined to the given
+    //relative tolerance, and returns it as a total-attenuation Material of the given density
+    static Material weightedSum(String name, double density, Material[] parts, double[] w, double tolerance){
+        AttenuationTable[] tables = new AttenuationTable[parts.length];
+        double lo = Double.NEGATIVE_INFINITY;
+        double hi = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < parts.length; i++){
+            tables[i] = AttenuationTable.of(parts[i]);
+            lo = Math.max(lo, tables[i].minEnergy);
+            hi = Math.min(hi, tables[i].maxEnergy);
+        }
+        if(!(lo < hi)){
+            throw new IllegalArgumentException("Constituents of " + name + " have no common energy range.");
+        }
+
+        //Merged grid: every constituent energy in [lo, hi]; edges are energies repeated in any constituent
+        TreeSet<Double> grid = new TreeSet<>();
+        Set<Double> edges = new HashSet<>();
+        grid.add(lo);
+        grid.add(hi);
+        for(Material mat: parts){
+            double[] energy = mat.energy;
+            for(int k = 0; k < energy.length; k++){
+                double E = energy[k];
+                if(E < lo || E > hi) continue;
+                grid.add(E);
+                if(k > 0 && energy[k - 1] == E && E > lo && E < hi) edges.add(E);
+            }
+        }
+
+        Samples samples = new Samples(2*grid.size());
+        double previousE = Double.NaN;
+        double previousValue = Double.NaN;
+        for(double E: grid){
+            //At the low end of the range only the side above an edge is inside the table
+            double below = sum(tables, w, E, E == lo);
+            if(!Double.isNaN(previousE)){
+                refine(tables, w, previousE, previousValue, E, below, tolerance, 0, samples);
+            }
+            samples.add(E, below);
+            double above = below;
+            if(edges.contains(E)){
+                above = sum(tables, w, E, true);
+                samples.add(E, above);
+            }
+            previousE = E;
+            previousValue = above;
+        }
+        return new Material(name, density, samples.energy(), samples.values());
+    }
+
+    //Ideal-mixing density (g/cm^3) from the constituent densities: 1/rho = sum_i w_i/rho_i
+    public static double idealDensity(Material[] constituents, double[] massFractions){
+        double[] w = normalize(constituents, massFractions);
+        double specificVolume = 0;
+        for(int i = 0; i < constituents.length; i++){
+            specificVolume += w[i]/constituents[i].density;
+        }
+        return 1/specificVolume;
+    }
+
+    private static double[] normalize(Material[] constituents, double[] massFractions){
+        if(constituents.length == 0){
+            throw new IllegalArgumentException("A mixture needs at least one constituent.");
+        }
+        if(constituents.length != massFractions.length){
+            throw new IllegalArgumentException("constituents and massFractions must have the same length.");
+        }
+        double total = 0;
+        for(double fraction: massFractions){
+            if(!(fraction > 0)){
+                throw new IllegalArgumentException("Mass fractions must be greater than zero.");
+            }
+            total += fraction;
+        }
+        if(Math.abs(total - 1) > FRACTION_SUM_TOLERANCE){
+            throw new IllegalArgumentException("Mass fractions must add up to 1 (got " + total + ").");
+        }
+        double[] w = new double[massFractions.length];
+        for(int i = 0; i < w.length; i++){
+            w[i] = massFractions[i]/total;
+        }
+        return w;
+    }
+
+    //Exact mixture mu/p at E; at a constituent edge, above selects the segment starting at E
+    private static double sum(AttenuationTable[] tables, double[] w, double E, boolean above){
+        double value = 0;
+        for(int i = 0; i < tables.length; i++){
+            int s = tables[i].segmentOf(E);
+            if(above && s + 1 < tables[i].segmentCount() && tables[i].segmentStart(s + 1) == E){
+                s++;
+            }
+            value += w[i]*tables[i].muOverP(E, s);
+        }
+        return value;
+    }
+
+    //Adds interior points of (E1, E2) until log-log interpolation matches the exact sum
+    private static void refine(AttenuationTable[] tables, double[] w, double E1, double V1, double E2, double V2,
+                               double tolerance, int depth, Samples samples){
+        if(depth >= MAX_DEPTH) return;
+        double mid = Math.sqrt(E1*E2);
+        if(!(mid > E1 && mid < E2)) return;
+        double exact = sum(tables, w, mid, false);
+        double interpolated = V1 > 0 && V2 > 0
+                ? Math.exp(Math.log(V1) + ((Math.log(mid) - Math.log(E1))/(Math.log(E2) - Math.log(E1)))*(Math.log(V2) - Math.log(V1)))
+                : V1 + ((mid - E1)/(E2 - E1))*(V2 - V1);
+        if(Math.abs(interpolated - exact) <= tolerance*Math.abs(exact)) return;
+        refine(tables, w, E1, V1, mid, exact, tolerance, depth + 1, samples);
+        samples.add(mid, exact);
+        refine(tables, w, mid, exact, E2, V2, tolerance, depth + 1, samples);
+    }
+
+    //Growable energy/value arrays in grid order
+    private static final class Samples{
+        private double[] energy;
+        private double[] values;
+        private int size;
+
+        Samples(int capacity){
+            energy = new double[capacity];
+            values = new double[capacity];
+        }
+
+        void add(double E, double value){
+            if(size == energy.length){
+                energy = Arrays.copyOf(energy, 2*size);
+                values = Arrays.copyOf(values, 2*size);
+            }
+            energy[size] = E;
+            values[size] = value;
+            size++;
+        }
+
+        double[] energy(){
+            return Arrays.copyOf(energy, size);
+        }
+
+        double[] values(){
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * MonteCarloTransport.java
+ *
+ * Analog Monte Carlo photon transport for an isotropic point source at the centre of
+ * concentric spherical shells. Used as an independent check on ShieldingCalculator.
+ *
+ * Geometry:
+ * - A void source cavity of the given inner radius
+ * - One shell per Layer, in order from the cavity outward
+ * - A point detector distance outside the last shell (void beyond the shield)
+ *
+ * Physics (from the photoelectric, Compton and pair components a Material carries):
+ * - Photoelectric absorption (fluorescence is not followed)
+ * - Compton scattering with Klein-Nishina angles (Kahn's rejection method)
+ * - Pair production, replaced by two back-to-back 0.511 MeV annihilation photons at the interaction site
+ * - Photons below the cutoff energy are absorbed
+ *
+ * Tallies (per source photon):
+ * - Uncollided escape probability, comparable to ShieldingCalculator.computeTransmission
+ * - Total escape (all photons leaving the shield)
+ * - Total flux at the detector radius from a surface-crossing estimator (1/|cos| per crossing / 4 pi d^2).
+ *   Crossings with |cos| below GRAZING_COSINE score 2/GRAZING_COSINE, the mean of 1/|cos| over that
+ *   band for an isotropic flux, so a single grazing photon cannot dominate the tally
+ *
+ * Every worker thread gets its own SplittableRandom stream and its own tally, so histories run
+ * without locking; tallies are merged once all workers finish.
+ */
+public class MonteCarloTransport{
+
+    //Default cutoff below which photons are absorbed (MeV)
+    public static final double DEFAULT_CUTOFF_ENERGY = 0.01;
+    //Electron rest energy (MeV)
+    private static final double ELECTRON_MASS = 0.51099895;
+    //Cosine below which a surface crossing scores the grazing-band average instead of 1/|cos|
+    private static final double GRAZING_COSINE = 0.1;
+    //Safety limit on photons banked by pair production within one history
+    private static final int MAX_BANK = 64;
+
+    //Merged results of a run
+    public static final class Result{
+        final long histories;
+        final long elapsedNanos;
+        final double distance;
+        //Per-source-photon means and their relative standard errors
+        final double uncollidedTransmission;
+        final double uncollidedRelativeError;
+        final double totalTransmission;
+        final double totalRelativeError;
+        final double fluxPerSourcePhoton;
+        final double fluxRelativeError;
+
+        Result(long histories, long elapsedNanos, Tally tally, double distance){
+            this.histories = histories;
+            this.elapsedNanos = elapsedNanos;
+            this.distance = distance;
+            this.uncollidedTransmission = mean(tally.uncollided, histories);
+            this.uncollidedRelativeError = relativeError(tally.uncollided, tally.uncollidedSq, histories);
+            this.totalTransmission = mean(tally.escaped, histories);
+            this.totalRelativeError = relativeError(tally.escaped, tally.escapedSq, histories);
+            double area = 4*Math.PI*distance*distance;
+            this.fluxPerSourcePhoton = mean(tally.crossing, histories)/area;
+            this.fluxRelativeError = relativeError(tally.crossing, tally.crossingSq, histories);
+        }
+
+        public long histories(){
+            return histories;
+        }
+
+        public double historiesPerSecond(){
+            return elapsedNanos == 0 ? 0 : histories*1e9/elapsedNanos;
+        }
+
+        public double uncollidedTransmission(){
+            return uncollidedTransmission;
+        }
+
+        public double uncollidedRelativeError(){
+            return uncollidedRelativeError;
+        }
+
+        public double totalTransmission(){
+            return totalTransmission;
+        }
+
+        public double totalRelativeError(){
+            return totalRelativeError;
+        }
+
+        //Total flux at the detector (photons/cm^2/s) for a source strength in photons/s
+        public double flux(double sourceStrength){
+            return fluxPerSourcePhoton*sourceStrength;
+        }
+
+        public double fluxRelativeError(){
+            return fluxRelativeError;
+        }
+
+        //Number-flux buildup estimate: total flux over uncollided flux at the detector.
+        //Uncollided photons leave radially, so their flux is T / (4 pi d^2) per source photon.
+        public double buildupFactor(){
+            return uncollidedTransmission == 0 ? Double.NaN
+                    : fluxPerSourcePhoton*4*Math.PI*distance*distance/uncollidedTransmission;
+        }
+
+        //Histories needed to reach the target relative error on the total flux, assuming 1/sqrt(N) scaling
+        public long historiesForRelativeError(double target){
+            double ratio = fluxRelativeError/target;
+            return (long) Math.ceil(histories*ratio*ratio);
+        }
+
+        private static double mean(double sum, long n){
+            return sum/n;
+        }
+
+        private static double relativeError(double sum, double sumSq, long n){
+            if(n < 2 || sum == 0){
+                return Double.NaN;
+            }
+            double mean = sum/n;
+            double variance = (sumSq/n - mean*mean)/(n - 1);
+            return Math.sqrt(Math.max(variance, 0))/mean;
+        }
+    }
+
+    //Runs on all available cores with the default cutoff
+    public static Result run(double energy, ArrayList<Layer> layers, double innerRadius, double distance,
+                             long histories, long seed){
+        return run(energy, layers, innerRadius, distance, histories, Runtime.getRuntime().availableProcessors(),
+                seed, DEFAULT_CUTOFF_ENERGY);
+    }
+
+    //Runs histories source photons of the given energy (MeV) split over the given number of threads
+    public static Result run(double energy, ArrayList<Layer> layers, double innerRadius, double distance,
+                             long histories, int threads, long seed, double cutoffEnergy){
+        Geometry geometry = new Geometry(layers, innerRadius);
+        if(distance < geometry.radii[geometry.radii.length - 1]){
+            throw new IllegalArgumentException("Detector distance must be outside the outer shield radius.");
+        }
+        if(histories < 2 || threads < 1){
+            throw new IllegalArgumentException("At least two histories and one thread are required.");
+        }
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try{
+            SplittableRandom master = new SplittableRandom(seed);
+            List<Future<Tally>> futures = new ArrayList<>();
+            for(int t = 0; t < threads; t++){
+                long share = histories/threads + (t < histories%threads ? 1 : 0);
+                SplittableRandom random = master.split();
+                futures.add(executor.submit(() -> simulate(geometry, energy, distance, share, random, cutoffEnergy)));
+            }
+            Tally total = new Tally();
+            for(Future<Tally> future: futures){
+                total.add(future.get());
+            }
+            return new Result(histories, System.nanoTime() - start, total, distance);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Monte Carlo run interrupted.", e);
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    //Runs a block of histories with a private random stream and tally
+    private static Tally simulate(Geometry geometry, double energy, double distance, long histories,
+                                  SplittableRandom random, double cutoffEnergy){
+        Tally tally = new Tally();
+        double[] bank = new double[MAX_BANK*7];
+        double[] sigma = new double[3];
+        double outer = geometry.radii[geometry.radii.length - 1];
+        for(long h = 0; h < histories; h++){
+            double escaped = 0;
+            double uncollided = 0;
+            double crossing = 0;
+
+            //Bank entries: x, y, z, u, v, w, E
+            int banked = 0;
+            double[] dir = isotropic(random);
+            push(bank, banked++, 0, 0, 0, dir[0], dir[1], dir[2], energy);
+            boolean primary = true;
+
+            while(banked > 0){
+                banked--;
+                int o = banked*7;
+                double x = bank[o], y = bank[o + 1], z = bank[o + 2];
+                double u = bank[o + 3], v = bank[o + 4], w = bank[o + 5];
+                double E = bank[o + 6];
+                boolean collided = !primary;
+                primary = false;
+
+                while(true){
+                    if(E < cutoffEnergy) break;
+                    double r2 = x*x + y*y + z*z;
+                    int region = geometry.regionOf(Math.sqrt(r2), x*u + y*v + z*w);
+                    if(region == geometry.layerCount){
+                        //Escaped: score and stop
+                        escaped += 1;
+                        if(!collided) uncollided += 1;
+                        double b = x*u + y*v + z*w;
+                        double disc = b*b - (r2 - distance*distance);
+                        double t = -b + Math.sqrt(Math.max(disc, 0));
+                        double rx = x + t*u, ry = y + t*v, rz = z + t*w;
+                        double cos = Math.abs((rx*u + ry*v + rz*w)/distance);
+                        crossing += cos < GRAZING_COSINE ? 2/GRAZING_COSINE : 1/cos;
+                        break;
+                    }
+                    double toBoundary = geometry.distanceToBoundary(region, x, y, z, u, v, w);
+                    //Steps that reach a boundary move slightly past it into the next region
+                    double crossStep = toBoundary + 1e-9*Math.max(outer, 1);
+                    if(region < 0){
+                        //Void cavity: fly straight to the first shell
+                        x += crossStep*u;
+                        y += crossStep*v;
+                        z += crossStep*w;
+                        continue;
+                    }
+                    double muTotal = geometry.crossSections(region, E, sigma);
+                    double flight = -Math.log(1 - random.nextDouble())/muTotal;
+                    if(flight >= toBoundary){
+                        x += crossStep*u;
+                        y += crossStep*v;
+                        z += crossStep*w;
+                        continue;
+                    }
+                    x += flight*u;
+                    y += flight*v;
+                    z += flight*w;
+                    collided = true;
+                    double pick = random.nextDouble()*muTotal;
+                    if(pick < sigma[0]){
+                        //Photoelectric absorption
+                        break;
+                    }else if(pick < sigma[0] + sigma[1]){
+                        //Compton scattering
+                        double alpha = E/ELECTRON_MASS;
+                        double ratio = sampleKahn(alpha, random);
+                        double cosTheta = 1 - (ratio - 1)/alpha;
+                        E /= ratio;
+                        double[] d = rotate(u, v, w, cosTheta, random);
+                        u = d[0];
+                        v = d[1];
+                        w = d[2];
+                    }else{
+                        //Pair production: two annihilation photons back to back
+                        double[] a = isotropic(random);
+                        if(banked < MAX_BANK){
+                            push(bank, banked++, x, y, z, -a[0], -a[1], -a[2], ELECTRON_MASS);
+                        }
+                        u = a[0];
+                        v = a[1];
+                        w = a[2];
+                        E = ELECTRON_MASS;
+                    }
+                }
+            }
+            tally.score(uncollided, escaped, crossing);
+        }
+        return tally;
+    }
+
+    //Samples x = E/E' from the Klein-Nishina distribution (Kahn's method)
+    private static double sampleKahn(double alpha, SplittableRandom random){
+        double twoAlpha = 2*alpha;
+        while(true){
+            double r1 = random.nextDouble();
+            double r2 = random.nextDouble();
+            double r3 = random.nextDouble();
+            if(r1 <= (1 + twoAlpha)/(9 + twoAlpha)){
+                double x = 1 + twoAlpha*r2;
+                if(r3 <= 4*(1/x - 1/(x*x))) return x;
+            }else{
+                double x = (1 + twoAlpha)/(1 + twoAlpha*r2);
+                double mu = 1 - (x - 1)/alpha;
+                if(r3 <= 0.5*(mu*mu + 1/x)) return x;
+            }
+        }
+    }
+
+    //Rotates direction (u, v, w) by polar cosine mu and a random azimuth
+    private static double[] rotate(double u, double v, double w, double mu, SplittableRandom random){
+        double phi = 2*Math.PI*random.nextDouble();
+        double sinTheta = Math.sqrt(Math.max(0, 1 - mu*mu));
+        double cosPhi = Math.cos(phi);
+        double sinPhi = Math.sin(phi);
+        double s = Math.sqrt(Math.max(0, 1 - w*w));
+        if(s < 1e-10){
+            double sign = w < 0 ? -1 : 1;
+            return new double[]{sinTheta*cosPhi, sinTheta*sinPhi, sign*mu};
+        }
+        return new double[]{
+                mu*u + sinTheta*(u*w*cosPhi - v*sinPhi)/s,
+                mu*v + sinTheta*(v*w*cosPhi + u*sinPhi)/s,
+                mu*w - sinTheta*s*cosPhi};
+    }
+
+    private static double[] isotropic(SplittableRandom random){
+        double w = 2*random.nextDouble() - 1;
+        double phi = 2*Math.PI*random.nextDouble();
+        double s = Math.sqrt(1 - w*w);
+        return new double[]{s*Math.cos(phi), s*Math.sin(phi), w};
+    }
+
+    private static void push(double[] bank, int index, double x, double y, double z, double u, double v, double w, double E){
+        int o = index*7;
+        bank[o] = x;
+        bank[o + 1] = y;
+        bank[o + 2] = z;
+        bank[o + 3] = u;
+        bank[o + 4] = v;
+        bank[o + 5] = w;
+        bank[o + 6] = E;
+    }
+
+    //Concentric shells and their compiled cross-section tables
+    private static final class Geometry{
+        //Shell boundary radii: radii[0] is the cavity radius, radii[i+1] the outer radius of layer i
+        final double[] radii;
+        final AttenuationTable[] tables;
+        final int layerCount;
+
+        Geometry(ArrayList<Layer> layers, double innerRadius){
+            if(innerRadius < 0){
+                throw new IllegalArgumentException("Source cavity radius cannot be negative.");
+            }
+            layerCount = layers.size();
+            radii = new double[layerCount + 1];
+            tables = new AttenuationTable[layerCount];
+            radii[0] = innerRadius;
+            for(int i = 0; i < layerCount; i++){
+                Layer layer = layers.get(i);
+                if(layer.thickness < 0){
+                    throw new IllegalArgumentException("Layer thickness cannot be negative.");
+                }
+                radii[i + 1] = radii[i] + layer.thickness;
+                tables[i] = AttenuationTable.of(layer.material);
+                if(tables[i].componentCount() != 3){
+                    throw new IllegalArgumentException("Monte Carlo transport needs photoelectric, Compton and pair data; "
+                            + layer.material.name + " only has total attenuation.");
+                }
+            }
+        }
+
+        //Region at radius r moving with radial cosine sign b: -1 = cavity, 0..n-1 = shells, n = outside
+        int regionOf(double r, double b){
+            if(r < radii[0] || (r == radii[0] && b < 0)) return -1;
+            for(int i = 0; i < layerCount; i++){
+                if(r < radii[i + 1] || (r == radii[i + 1] && b < 0)) return i;
+            }
+            return layerCount;
+        }
+
+        //Distance along (u, v, w) from (x, y, z) to the boundary of the region
+        double distanceToBoundary(int region, double x, double y, double z, double u, double v, double w){
+            double b = x*u + y*v + z*w;
+            double r2 = x*x + y*y + z*z;
+            double outerRadius = radii[region + 1];
+            double best = -b + Math.sqrt(Math.max(0, b*b - (r2 - outerRadius*outerRadius)));
+            if(region >= 0 && b < 0){
+                double innerRadius = radii[region];
+                double disc = b*b - (r2 - innerRadius*innerRadius);
+                if(disc >= 0){
+                    double t = -b - Math.sqrt(disc);
+                    if(t >= 0 && t < best) best = t;
+                }
+            }
+            return best;
+        }
+
+        //Fills sigma with photoelectric, Compton and pair mu (1/cm) and returns the total
+        double crossSections(int region, double E, double[] sigma){
+            AttenuationTable table = tables[region];
+            int s = table.segmentOf(E);
+            if(s == -1){
+                throw table.outOfBounds(E);
+            }
+            double total = 0;
+            for(int c = 0; c < 3; c++){
+                sigma[c] = Math.max(0, table.componentMuOverP(E, s, c))*table.density;
+                total += sigma[c];
+            }
+            return total;
+        }
+    }
+
+    //Per-thread sums of per-history scores and their squares
+    private static final class Tally{
+        double uncollided;
+        double uncollidedSq;
+        double escaped;
+        double escapedSq;
+        double crossing;
+        double crossingSq;
+
+        void score(double uncollided, double escaped, double crossing){
+            this.uncollided += uncollided;
+            this.uncollidedSq += uncollided*uncollided;
+            this.escaped += escaped;
+            this.escapedSq += escaped*escaped;
+            this.crossing += crossing;
+            this.crossingSq += crossing*crossing;
+        }
+
+        void add(Tally other){
+            uncollided += other.uncollided;
+            uncollidedSq += other.uncollidedSq;
+            escaped += other.escaped;
+            escapedSq += other.escapedSq;
+            crossing += other.crossing;
+            crossingSq += other.crossingSq;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * ParameterSweep.java
+ *
+ * Evaluates single-layer transmission and flux over a material x thickness x energy x distance grid.
+ *
+ * mu(E) is computed once per (material, energy) before the sweep starts, itself split over
+ * (material, energy block). The flattened (material, thickness, energy) index space is then
+ * split across a ForkJoinPool, so even a single material and thickness over many energies
+ * uses every worker. Every task writes straight into preallocated primitive result blocks,
+ * so threads never share mutable state except the progress counter.
+ *
+ * Result layout (row-major):
+ *  - transmission[((m*T) + t)*E + e]
+ *  - flux[(((m*T) + t)*E + e)*D + d]
+ */
+public class ParameterSweep{
+
+    //Target number of flux points per leaf task
+    private static final int POINTS_PER_TASK = 1 << 14;
+    //Energies per leaf task of the mu precompute
+    private static final int ENERGIES_PER_MU_TASK = 1024;
+
+    //Receives progress updates. May be called from several worker threads at once.
+    public interface ProgressListener{
+        void onProgress(long pointsDone, long pointsTotal, double pointsPerSecond);
+    }
+
+    //Grid specification for a sweep
+    public static final class Grid{
+        //MaterialLibrary menu indices
+        final int[] materialIds;
+        //Shield thicknesses in cm
+        final double[] thicknesses;
+        //Photon energies in MeV
+        final double[] energies;
+        //Detector distances in cm
+        final double[] distances;
+        //Source strength in photons/s
+        final double sourceStrength;
+
+        public Grid(int[] materialIds, double[] thicknesses, double[] energies, double[] distances, double sourceStrength){
+            for(double t: thicknesses){
+                if(!(t >= 0)) throw new IllegalArgumentException("Thickness cannot be negative.");
+            }
+            for(double d: distances){
+                if(!(d > 0)) throw new IllegalArgumentException("Detector distance must be greater than zero.");
+            }
+            if(sourceStrength < 0){
+                throw new IllegalArgumentException("Source strength cannot be negative.");
+            }
+            this.materialIds = materialIds.clone();
+            this.thicknesses = thicknesses.clone();
+            this.energies = energies.clone();
+            this.distances = distances.clone();
+            this.sourceStrength = sourceStrength;
+        }
+
+        //Number of transmission points (materials x thicknesses x energies)
+        public long transmissionPoints(){
+            return (long) materialIds.length*thicknesses.length*energies.length;
+        }
+
+        //Number of flux points (transmission points x distances)
+        public long fluxPoints(){
+            return transmissionPoints()*distances.length;
+        }
+    }
+
+    //Preallocated result blocks for one grid
+    public static final class Result{
+        final Grid grid;
+        //Transmission per (material, thickness, energy)
+        public final double[] transmission;
+        //Flux per (material, thickness, energy, distance) in photons/cm^2/s
+        public final double[] flux;
+        //Wall time of the last run in nanoseconds
+        long elapsedNanos;
+
+        public Result(Grid grid){
+            //Without distances there are no flux points, so the transmission block can be the larger one
+            long points = Math.max(grid.transmissionPoints(), grid.fluxPoints());
+            if(points > Integer.MAX_VALUE - 8){
+                throw new IllegalArgumentException("Grid has too many points for one result block: " + points);
+            }
+            this.grid = grid;
+            this.transmission = new double[(int) grid.transmissionPoints()];
+            this.flux = new double[(int) grid.fluxPoints()];
+        }
+
+        public double transmission(int m, int t, int e){
+            return transmission[(m*grid.thicknesses.length + t)*grid.energies.length + e];
+        }
+
+        public double flux(int m, int t, int e, int d){
+            return flux[((m*grid.thicknesses.length + t)*grid.energies.length + e)*grid.distances.length + d];
+        }
+
+        public long elapsedNanos(){
+            return elapsedNanos;
+        }
+
+        //Flux points evaluated per second during the last run
+        public double pointsPerSecond(){
+            return elapsedNanos == 0 ? 0 : grid.fluxPoints()*1e9/elapsedNanos;
+        }
+    }
+
+    //Returns n evenly spaced values from min to max inclusive
+    public static double[] linspace(double min, double max, int n){
+        if(n < 2){
+            throw new IllegalArgumentException("At least two samples are required.");
+        }
+        double[] values = new double[n];
+        double step = (max - min)/(n - 1);
+        for(int i = 0; i < n; i++){
+            values[i] = min + i*step;
+        }
+        values[n - 1] = max;
+        return values;
+    }
+
+    //Runs the sweep on the common ForkJoinPool
+    public static Result run(Grid grid){
+        Result result = new Result(grid);
+        run(grid, result, ForkJoinPool.commonPool(), null);
+        return result;
+    }
+
+    //Runs the sweep on the given pool, writing into result. listener may be null.
+    public static void run(Grid grid, Result result, ForkJoinPool pool, ProgressListener listener){
+        if(result.grid != grid){
+            throw new IllegalArgumentException("Result was allocated for a different grid.");
+        }
+        long start = System.nanoTime();
+
+        //mu(E) per material, computed once in parallel (material x energy blocks) and shared read-only by all tasks
+        double[][] mu = new double[grid.materialIds.length][grid.energies.length];
+        int muBlocks = (grid.energies.length + ENERGIES_PER_MU_TASK - 1)/ENERGIES_PER_MU_TASK;
+        pool.invoke(new MuTask(grid, mu, 0, grid.materialIds.length*muBlocks, muBlocks));
+        //Inverse-square factor S/(4 pi d^2) per distance
+        double[] spread = new double[grid.distances.length];
+        for(int d = 0; d < spread.length; d++){
+            spread[d] = ShieldingCalculator.computeFlux(1, grid.distances[d], grid.sourceStrength);
+        }
+
+        //Tasks split the flattened (material, thickness, energy) index space, so grids with few
+        //materials and thicknesses still spread their energies over every worker
+        int cells = (int) grid.transmissionPoints();
+        int cellsPerTask = Math.max(1, POINTS_PER_TASK/Math.max(1, grid.distances.length));
+        Progress progress = new Progress(grid.fluxPoints(), start, listener);
+
+        pool.invoke(new CellTask(grid, result, mu, spread, 0, cells, cellsPerTask, progress));
+        result.elapsedNanos = System.nanoTime() - start;
+    }
+
+    //Fills mu for blocks [from, to) of the (material, energy block) space
+    private static final class MuTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final Grid grid;
+        private final double[][] mu;
+        private final int from;
+        private final int to;
+        private final int blocksPerMaterial;
+
+        MuTask(Grid grid, double[][] mu, int from, int to, int blocksPerMaterial){
+            this.grid = grid;
+            this.mu = mu;
+            this.from = from;
+            this.to = to;
+            this.blocksPerMaterial = blocksPerMaterial;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from > 1){
+                int mid = (from + to) >>> 1;
+                invokeAll(new MuTask(grid, mu, from, mid, blocksPerMaterial), new MuTask(grid, mu, mid, to, blocksPerMaterial));
+                return;
+            }
+            if(to == from) return;
+            int m = from/blocksPerMaterial;
+            int first = (from%blocksPerMaterial)*ENERGIES_PER_MU_TASK;
+            int last = Math.min(grid.energies.length, first + ENERGIES_PER_MU_TASK);
+            double[] block = new double[last - first];
+            ShieldingCalculator.computeMu(Arrays.copyOfRange(grid.energies, first, last), grid.materialIds[m], block);
+            System.arraycopy(block, 0, mu[m], first, block.length);
+        }
+    }
+
+    //Evaluates transmission points [from, to) (and their distances), splitting until small enough
+    private static final class CellTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final Grid grid;
+        private final Result result;
+        private final double[][] mu;
+        private final double[] spread;
+        private final int from;
+        private final int to;
+        private final int cellsPerTask;
+        private final Progress progress;
+
+        CellTask(Grid grid, Result result, double[][] mu, double[] spread, int from, int to, int cellsPerTask, Progress progress){
+            this.grid = grid;
+            this.result = result;
+            this.mu = mu;
+            this.spread = spread;
+            this.from = from;
+            this.to = to;
+            this.cellsPerTask = cellsPerTask;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from > cellsPerTask){
+                int mid = (from + to) >>> 1;
+                invokeAll(new CellTask(grid, result, mu, spread, from, mid, cellsPerTask, progress),
+                        new CellTask(grid, result, mu, spread, mid, to, cellsPerTask, progress));
+                return;
+            }
+            int nT = grid.thicknesses.length;
+            int nE = grid.energies.length;
+            int nD = spread.length;
+            double[] transmission = result.transmission;
+            double[] flux = result.flux;
+            //cell = row*nE + e with row = m*nT + t
+            for(int cell = from; cell < to; ){
+                int row = cell/nE;
+                double[] muRow = mu[row/nT];
+                double thickness = grid.thicknesses[row%nT];
+                int rowEnd = Math.min(to, (row + 1)*nE);
+                for(int e = cell - row*nE; cell < rowEnd; cell++, e++){
+                    double T = Math.exp(-muRow[e]*thickness);
+                    transmission[cell] = T;
+                    int fluxBase = cell*nD;
+                    for(int d = 0; d < nD; d++){
+                        flux[fluxBase + d] = spread[d]*T;
+                    }
+                }
+            }
+            progress.add((long) (to - from)*nD);
+        }
+    }
+
+    //Shared progress counter; LongAdder keeps contention low when many tasks finish together
+    private static final class Progress{
+        private final LongAdder done = new LongAdder();
+        private final long total;
+        private final long start;
+        private final ProgressListener listener;
+
+        Progress(long total, long start, ProgressListener listener){
+            this.total = total;
+            this.start = start;
+            this.listener = listener;
+        }
+
+        void add(long points){
+            done.add(points);
+            if(listener != null){
+                long sum = done.sum();
+                double seconds = (System.nanoTime() - start)/1e9;
+                listener.onProgress(sum, total, seconds > 0 ? sum/seconds : 0);
+            }
+        }
+    }
+}
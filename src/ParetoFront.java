@@ -0,0 +1,354 @@
+import java.util.*;
+
+/**
+ * ParetoFront.java
+ *
+ * Non-dominated (Pareto) fronts of shield designs over total thickness, mass per area and relative
+ * cost per area, all minimized.
+ *
+ * Dominance matches plot_data.py: a design dominates another when it is no worse in every metric and
+ * strictly better in at least one. Designs with identical metrics do not dominate each other, so
+ * duplicates on the front are all kept.
+ *
+ * Batch fronts use sort-based skyline sweeps in O(n log n):
+ * - 2-D: sort by (x, y) and keep each x group's lowest y while it improves on every smaller x
+ * - 3-D: sort by (x, y, z) and test each point against a (y, z) staircase of the front found so far
+ *
+ * Archive accepts designs one at a time and keeps only the current front (plus, for 3-D, a bounded
+ * buffer of pending designs that is merged with the front by the batch sweep when it fills up).
+ */
+public class ParetoFront{
+
+    //Metric selectors
+    public static final int THICKNESS = 0;
+    public static final int MASS_PER_AREA = 1;
+    public static final int COST_PER_AREA = 2;
+
+    //Smallest pending buffer of a 3-D archive; the buffer also grows with the front
+    private static final int MIN_BUFFER = 4096;
+
+    //One shield design and its metrics
+    public static final class Candidate{
+        final ArrayList<Layer> layers;
+        final double thickness;
+        final double massPerArea;
+        final double costPerArea;
+
+        public Candidate(ArrayList<Layer> layers, double thickness, double massPerArea, double costPerArea){
+            this.layers = layers;
+            this.thickness = thickness;
+            this.massPerArea = massPerArea;
+            this.costPerArea = costPerArea;
+        }
+
+        //Computes the metrics of a layer stack; cost is NaN if a layer has no cost data
+        public static Candidate of(List<Layer> layers){
+            double thickness = 0;
+            double mass = 0;
+            double cost = 0;
+            for(Layer layer: layers){
+                if(layer.thickness < 0){
+                    throw new IllegalArgumentException("Thickness cannot be negative.");
+                }
+                double layerMass = layer.material.density*layer.thickness;
+                double index = MaterialCostLibrary.getRelativeCostIndex(MaterialLibrary.getKey(layer.material));
+                thickness += layer.thickness;
+                mass += layerMass;
+                cost += Double.isNaN(index) ? Double.NaN : MaterialCostLibrary.relativeCostPerArea(layerMass, index);
+            }
+            return new Candidate(new ArrayList<>(layers), thickness, mass, cost);
+        }
+
+        public ArrayList<Layer> layers(){
+            return layers;
+        }
+
+        public double thickness(){
+            return thickness;
+        }
+
+        public double massPerArea(){
+            return massPerArea;
+        }
+
+        public double costPerArea(){
+            return costPerArea;
+        }
+
+        //Value of THICKNESS, MASS_PER_AREA or COST_PER_AREA
+        public double metric(int metric){
+            switch(metric){
+                case THICKNESS: return thickness;
+                case MASS_PER_AREA: return massPerArea;
+                case COST_PER_AREA: return costPerArea;
+                default: throw new IllegalArgumentException("Unknown metric: " + metric);
+            }
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder sb = new StringBuilder();
+            for(Layer layer: layers){
+                if(sb.length() > 0) sb.append(" + ");
+                sb.append(String.format("%.6g cm %s", layer.thickness, layer.material.name));
+            }
+            return String.format("%s (%.6g cm, %.6g g/cm^2, cost %.6g)", sb, thickness, massPerArea, costPerArea);
+        }
+    }
+
+    //Front of the candidates over 2 or 3 metrics, ordered by the first metric
+    public static List<Candidate> front(List<Candidate> candidates, int... metrics){
+        checkMetrics(metrics);
+        double[][] values = new double[metrics.length][candidates.size()];
+        for(int i = 0; i < candidates.size(); i++){
+            for(int m = 0; m < metrics.length; m++){
+                values[m][i] = candidates.get(i).metric(metrics[m]);
+            }
+        }
+        int[] kept = metrics.length == 2 ? front2D(values[0], values[1]) : front3D(values[0], values[1], values[2]);
+        List<Candidate> front = new ArrayList<>(kept.length);
+        for(int i: kept){
+            front.add(candidates.get(i));
+        }
+        return front;
+    }
+
+    //Indices of the non-dominated points (x[i], y[i]), ordered by x then y
+    public static int[] front2D(double[] x, double[] y){
+        checkValues(x, y);
+        int[] order = sortedIndices(x, y, null);
+        int[] kept = new int[order.length];
+        int count = 0;
+        double bestY = Double.POSITIVE_INFINITY;
+        int i = 0;
+        while(i < order.length){
+            //Points sharing x; the first has the group's lowest y
+            double groupX = x[order[i]];
+            double groupY = y[order[i]];
+            boolean onFront = groupY < bestY;
+            for(; i < order.length && x[order[i]] == groupX; i++){
+                if(onFront && y[order[i]] == groupY) kept[count++] = order[i];
+            }
+            if(onFront) bestY = groupY;
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    //Indices of the non-dominated points (x[i], y[i], z[i]), ordered by x, y, then z
+    public static int[] front3D(double[] x, double[] y, double[] z){
+        checkValues(x, y, z);
+        int[] order = sortedIndices(x, y, z);
+        int[] kept = new int[order.length];
+        int count = 0;
+        //Front points seen so far projected on (y, z): z strictly decreases as y increases
+        TreeMap<Double, Double> staircase = new TreeMap<>();
+        int i = 0;
+        while(i < order.length){
+            //Identical points share one verdict. Earlier points have x <= this x, so any of them with
+            //y and z no larger dominates it, and the staircase holds the lowest z for every y bound.
+            int first = order[i];
+            double px = x[first];
+            double py = y[first] + 0.0;
+            double pz = z[first];
+            Map.Entry<Double, Double> lower = staircase.floorEntry(py);
+            boolean onFront = lower == null || lower.getValue() > pz;
+            for(; i < order.length && x[order[i]] == px && y[order[i]] == py && z[order[i]] == pz; i++){
+                if(onFront) kept[count++] = order[i];
+            }
+            if(onFront){
+                //Drop steps the new point covers, then add it
+                Iterator<Map.Entry<Double, Double>> higher = staircase.tailMap(py, true).entrySet().iterator();
+                while(higher.hasNext() && higher.next().getValue() >= pz){
+                    higher.remove();
+                }
+                staircase.put(py, pz);
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    //Streaming front: accepts candidates one at a time and keeps only the current front
+    public static final class Archive{
+        private final int[] metrics;
+        //2-D: first metric -> step of identical front points (second metric strictly decreasing)
+        private final TreeMap<Double, Step> steps;
+        //3-D: current front and candidates not yet merged into it
+        private List<Candidate> front;
+        private final List<Candidate> pending;
+        private long offered;
+
+        public Archive(int... metrics){
+            checkMetrics(metrics);
+            this.metrics = metrics.clone();
+            if(metrics.length == 2){
+                steps = new TreeMap<>();
+                front = null;
+                pending = null;
+            }else{
+                steps = null;
+                front = new ArrayList<>();
+                pending = new ArrayList<>();
+            }
+        }
+
+        //Offers a candidate. For 2-D returns whether it joined the front; for 3-D returns true once buffered.
+        public boolean add(Candidate candidate){
+            double x = candidate.metric(metrics[0]);
+            double y = candidate.metric(metrics[1]);
+            if(metrics.length == 3){
+                checkValue(x);
+                checkValue(y);
+                checkValue(candidate.metric(metrics[2]));
+                offered++;
+                pending.add(candidate);
+                if(pending.size() >= Math.max(MIN_BUFFER, front.size())) merge();
+                return true;
+            }
+            checkValue(x);
+            checkValue(y);
+            offered++;
+            x += 0.0;
+            Map.Entry<Double, Step> lower = steps.floorEntry(x);
+            if(lower != null){
+                double lowerY = lower.getValue().y;
+                if(lowerY < y || (lowerY == y && lower.getKey() < x)) return false;
+                if(lowerY == y){
+                    lower.getValue().members.add(candidate);
+                    return true;
+                }
+            }
+            //Drop steps the new candidate dominates, including a same-x step with larger y
+            Iterator<Step> higher = steps.tailMap(x, true).values().iterator();
+            while(higher.hasNext() && higher.next().y >= y){
+                higher.remove();
+            }
+            steps.put(x, new Step(y, candidate));
+            return true;
+        }
+
+        //Current front, ordered by the first metric
+        public List<Candidate> front(){
+            if(steps == null){
+                merge();
+                return new ArrayList<>(front);
+            }
+            List<Candidate> result = new ArrayList<>();
+            for(Step step: steps.values()){
+                result.addAll(step.members);
+            }
+            return result;
+        }
+
+        //Number of candidates offered so far
+        public long offered(){
+            return offered;
+        }
+
+        //Number of front designs (merges pending 3-D candidates first)
+        public int size(){
+            if(steps == null){
+                merge();
+                return front.size();
+            }
+            int size = 0;
+            for(Step step: steps.values()){
+                size += step.members.size();
+            }
+            return size;
+        }
+
+        private void merge(){
+            if(pending.isEmpty()) return;
+            List<Candidate> all = new ArrayList<>(front.size() + pending.size());
+            all.addAll(front);
+            all.addAll(pending);
+            pending.clear();
+            front = ParetoFront.front(all, metrics);
+        }
+    }
+
+    //Front points of a 2-D archive that share both metrics
+    private static final class Step{
+        final double y;
+        final List<Candidate> members = new ArrayList<>(1);
+
+        Step(double y, Candidate first){
+            this.y = y;
+            members.add(first);
+        }
+    }
+
+    private static void checkMetrics(int[] metrics){
+        if(metrics.length != 2 && metrics.length != 3){
+            throw new IllegalArgumentException("A Pareto front needs 2 or 3 metrics.");
+        }
+        for(int a = 0; a < metrics.length; a++){
+            if(metrics[a] < THICKNESS || metrics[a] > COST_PER_AREA){
+                throw new IllegalArgumentException("Unknown metric: " + metrics[a]);
+            }
+            for(int b = 0; b < a; b++){
+                if(metrics[a] == metrics[b]){
+                    throw new IllegalArgumentException("Pareto metrics must be distinct.");
+                }
+            }
+        }
+    }
+
+    private static void checkValues(double[]... columns){
+        for(double[] column: columns){
+            if(column.length != columns[0].length){
+                throw new IllegalArgumentException("Metric arrays must have the same length.");
+            }
+            for(double value: column){
+                checkValue(value);
+            }
+        }
+    }
+
+    private static void checkValue(double value){
+        if(Double.isNaN(value)){
+            throw new IllegalArgumentException("Pareto metric values cannot be NaN.");
+        }
+    }
+
+    //Indices sorted lexicographically by (x, y, z); z may be null
+    private static int[] sortedIndices(double[] x, double[] y, double[] z){
+        int[] order = new int[x.length];
+        for(int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        mergeSort(order, new int[order.length], 0, order.length, x, y, z);
+        return order;
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, double[] x, double[] y, double[] z){
+        if(to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, x, y, z);
+        mergeSort(a, tmp, mid, to, x, y, z);
+        if(compare(a[mid - 1], a[mid], x, y, z) <= 0) return;
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for(int k = from; k < to; k++){
+            if(j >= to || (i < mid && compare(tmp[i], tmp[j], x, y, z) <= 0)){
+                a[k] = tmp[i++];
+            }else{
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    //Numeric comparison (-0.0 equals 0.0, matching the == grouping in the sweeps)
+    private static int compare(int a, int b, double[] x, double[] y, double[] z){
+        int c = compare(x[a], x[b]);
+        if(c != 0 || y == null) return c;
+        c = compare(y[a], y[b]);
+        if(c != 0 || z == null) return c;
+        return compare(z[a], z[b]);
+    }
+
+    private static int compare(double a, double b){
+        return a < b ? -1 : (a > b ? 1 : 0);
+    }
+}
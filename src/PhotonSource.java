@@ -0,0 +1,147 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * PhotonSource.java
+ *
+ * Represents a discrete-line photon source.
+ *
+ * Each source has:
+ * - Name and activity (Bq)
+ * - Photon line energies (MeV) and intensities (photons per decay)
+ *
+ * Photon emission rate of a line = activity * intensity.
+ *
+ * Linear attenuation coefficients for the lines are cached per shared library material, so a
+ * spectrum evaluated through many shield candidates costs one table lookup per
+ * line per material. Sources that share the same lines (e.g. withActivity) share the cache.
+ * Other materials (mixtures, fresh create results, user-built materials) go to a small
+ * direct-mapped memo of TRANSIENT_SLOTS entries instead, so repeated lookups of the same material
+ * stay cheap while a stream of transient materials can never grow the cache.
+ */
+public final class PhotonSource{
+    //Source name (e.g. "Cs-137")
+    final String name;
+    //Activity in Bq
+    final double activity;
+    //Line energies in MeV
+    final double[] energies;
+    //Line intensities in photons per decay
+    final double[] intensities;
+    //Slots in the memo for materials that are not shared library instances (power of two)
+    private static final int TRANSIENT_SLOTS = 16;
+
+    //mu (1/cm) per line, keyed by shared library material instance
+    private final ConcurrentHashMap<Material, double[]> muCache;
+    //mu (1/cm) per line of other materials, by identity hash; a colliding material replaces the entry
+    private final AtomicReferenceArray<MuEntry> transientMu;
+
+    public PhotonSource(String name, double activity, double[] energies, double[] intensities){
+        this(name, activity, energies.clone(), intensities.clone(), new ConcurrentHashMap<>(),
+                new AtomicReferenceArray<>(TRANSIENT_SLOTS));
+        if(name == null || name.trim().isEmpty()){
+            throw new IllegalArgumentException("Source name cannot be empty.");
+        }
+        if(energies.length == 0 || energies.length != intensities.length){
+            throw new IllegalArgumentException("A source needs at least one line and one intensity per energy.");
+        }
+        for(int i = 0; i < energies.length; i++){
+            if(!(energies[i] > 0)){
+                throw new IllegalArgumentException("Photon line energy must be greater than zero.");
+            }
+            if(intensities[i] < 0){
+                throw new IllegalArgumentException("Photon line intensity cannot be negative.");
+            }
+        }
+    }
+
+    private PhotonSource(String name, double activity, double[] energies, double[] intensities,
+                         ConcurrentHashMap<Material, double[]> muCache, AtomicReferenceArray<MuEntry> transientMu){
+        if(activity < 0){
+            throw new IllegalArgumentException("Source activity cannot be negative.");
+        }
+        this.name = name;
+        this.activity = activity;
+        this.energies = energies;
+        this.intensities = intensities;
+        this.muCache = muCache;
+        this.transientMu = transientMu;
+    }
+
+    //Returns the same lines with a different activity, sharing the mu cache
+    public PhotonSource withActivity(double activity){
+        return new PhotonSource(name, activity, energies, intensities, muCache, transientMu);
+    }
+
+    public int lineCount(){
+        return energies.length;
+    }
+
+    public double energy(int line){
+        return energies[line];
+    }
+
+    public double intensity(int line){
+        return intensities[line];
+    }
+
+    //Photon emission rate of one line in photons/s
+    public double photonRate(int line){
+        return activity*intensities[line];
+    }
+
+    //Total photon emission rate over all lines in photons/s
+    public double totalPhotonRate(){
+        double total = 0;
+        for(int i = 0; i < energies.length; i++){
+            total += photonRate(i);
+        }
+        return total;
+    }
+
+    //Returns mu (1/cm) of the material at every line energy.
+    //The array is cached and shared: callers must not modify it.
+    public double[] mu(Material mat){
+        double[] mu = muCache.get(mat);
+        if(mu == null){
+            if(!MaterialLibrary.isShared(mat)){
+                return transientMu(mat);
+            }
+            mu = muCache.computeIfAbsent(mat, this::computeMu);
+        }
+        return mu;
+    }
+
+    private double[] transientMu(Material mat){
+        int slot = System.identityHashCode(mat) & (TRANSIENT_SLOTS - 1);
+        MuEntry entry = transientMu.get(slot);
+        if(entry == null || entry.material != mat){
+            entry = new MuEntry(mat, computeMu(mat));
+            transientMu.set(slot, entry);
+        }
+        return entry.mu;
+    }
+
+    private double[] computeMu(Material mat){
+        AttenuationTable table = AttenuationTable.of(mat);
+        double[] mu = new double[energies.length];
+        for(int i = 0; i < energies.length; i++){
+            mu[i] = table.mu(energies[i]);
+            if(mu[i] < 0){
+                throw new IllegalStateException("Negative mu encountered.");
+            }
+        }
+        return mu;
+    }
+
+    //Memo entry for a material that is not a shared library instance
+    private static final class MuEntry{
+        final Material material;
+        final double[] mu;
+
+        MuEntry(Material material, double[] mu){
+            this.material = material;
+            this.mu = mu;
+        }
+    }
+}
@@ -10,29 +10,19 @@ public class Physics{
 
     /*Estimes the linear attenuation coefficient (mu) (1/cm) for a material at photon energy E.
       Uses NIST mass attenuation tables for photoelectric, Compton, and pair production contributions.
+      Evaluates through the material's compiled AttenuationTable, which gives the same result as
+      interpolating each contribution with interpolate().
     */
     public static double getMu(double E, Material mat){
-        if(mat.muPhotoOverP !=null && mat.muComptonOverP!=null&&mat.muPairOverP!=null){
-            //Interpolate each contribution separately
-            double photo = interpolate(E, mat.energy, mat.muPhotoOverP);
-            double compton = interpolate(E, mat.energy, mat.muComptonOverP);
-            double pair = interpolate(E, mat.energy, mat.muPairOverP);
-
-            double muOverP = photo + compton + pair;
-            //Convert mass attenuation (1/cm^2/g) to linear attenuation (1/cm)
-            return muOverP * mat.density;
-        }
-        if(mat.muOverP !=null){
-            double muOverP = interpolate(E, mat.energy, mat.muOverP);
-            return muOverP *mat.density;
-        }
-        throw new IllegalStateException("Material has no attenuation data.");
+        if(EngineMetrics.enabled) EngineMetrics.MU_CALLS.increment();
+        return AttenuationTable.of(mat).mu(E);
     }
     //Performs log-log interpolation between tabulated values. Falls back to linear interpolation if values are negative or zero.
     public static double interpolate(double E, double[] energy, double[] values){
         int i = bracketIndex(E, energy);
 
         if(i==-1){
+            if(EngineMetrics.enabled) EngineMetrics.OUT_OF_BOUNDS.increment();
             throw new IllegalArgumentException("Energy " + E + " MeV out of bounds ["
                     + energy[0] + ", " + energy[energy.length-1] + "]");
         }
@@ -43,6 +33,7 @@ public class Physics{
 
         //Linear attenuation if one of the values is zero or negative
         if(V1 <= 0 || V2 <= 0){
+            if(EngineMetrics.enabled) EngineMetrics.LINEAR_FALLBACKS.increment();
             return V1 + ((E - E1)/(E2 - E1))*(V2 - V1);
         }
         double lnE = Math.log(E);
@@ -0,0 +1,561 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * PointKernelTracer.java
+ *
+ * Uncollided point-kernel flux through 3-D constructive solid geometry (CSG).
+ *
+ * A scene is a list of cells, each a CSG solid filled with one Material. Solids are built from
+ * boxes, spheres and finite cylinders combined by union, intersection and difference, so a wall
+ * with a penetration is a Box minus a Cylinder. Cells must not overlap; space outside every cell
+ * is void.
+ *
+ * For a source-detector pair the ray segment is intersected with every cell it can reach and
+ *   flux = sum_k S_k exp(-sum_c mu_ck l_c) / (4 pi r^2)
+ * where l_c is the path length through cell c. Solids report their crossings as sorted, disjoint
+ * parameter intervals along the ray, which CSG nodes combine exactly.
+ *
+ * Cells are held in a bounding-volume hierarchy (median split on the longest axis of the cell
+ * bounds), so a ray only tests cells whose boxes it crosses and cost grows with log(cells) for
+ * localized geometry. Detector batches are split over a ForkJoinPool, as in ParameterSweep.
+ */
+public class PointKernelTracer{
+
+    //Cells per BVH leaf and detectors per parallel task
+    private static final int LEAF_SIZE = 4;
+    private static final int DETECTORS_PER_TASK = 64;
+    //Rays shorter than this (cm) are treated as starting on the detector
+    private static final double MIN_DISTANCE = 1e-12;
+    //Interval combination operators
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
+
+    private static final double[] NONE = new double[0];
+
+    //A solid reports where a ray segment is inside it
+    public interface Solid{
+        //Axis-aligned bounds {minX, minY, minZ, maxX, maxY, maxZ}
+        double[] bounds();
+
+        //Sorted, disjoint [t0, t1, t2, t3, ...] with o + t*d inside the solid and 0 <= t <= length (d is a unit vector)
+        double[] intervals(double[] o, double[] d, double length);
+    }
+
+    //Axis-aligned box
+    public static final class Box implements Solid{
+        final double[] min;
+        final double[] max;
+
+        public Box(double minX, double minY, double minZ, double maxX, double maxY, double maxZ){
+            if(!(minX < maxX && minY < maxY && minZ < maxZ)){
+                throw new IllegalArgumentException("Box minimum must be below its maximum on every axis.");
+            }
+            min = new double[]{minX, minY, minZ};
+            max = new double[]{maxX, maxY, maxZ};
+        }
+
+        @Override
+        public double[] bounds(){
+            return new double[]{min[0], min[1], min[2], max[0], max[1], max[2]};
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double t0 = 0;
+            double t1 = length;
+            for(int a = 0; a < 3; a++){
+                if(d[a] == 0){
+                    if(o[a] < min[a] || o[a] > max[a]) return NONE;
+                    continue;
+                }
+                double near = (min[a] - o[a])/d[a];
+                double far = (max[a] - o[a])/d[a];
+                if(near > far){
+                    double swap = near;
+                    near = far;
+                    far = swap;
+                }
+                t0 = Math.max(t0, near);
+                t1 = Math.min(t1, far);
+                if(t0 >= t1) return NONE;
+            }
+            return new double[]{t0, t1};
+        }
+    }
+
+    //Sphere
+    public static final class Sphere implements Solid{
+        final double[] center;
+        final double radius;
+
+        public Sphere(double x, double y, double z, double radius){
+            if(!(radius > 0)){
+                throw new IllegalArgumentException("Sphere radius must be greater than zero.");
+            }
+            center = new double[]{x, y, z};
+            this.radius = radius;
+        }
+
+        @Override
+        public double[] bounds(){
+            return new double[]{center[0] - radius, center[1] - radius, center[2] - radius,
+                    center[0] + radius, center[1] + radius, center[2] + radius};
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double ox = o[0] - center[0];
+            double oy = o[1] - center[1];
+            double oz = o[2] - center[2];
+            double b = ox*d[0] + oy*d[1] + oz*d[2];
+            double c = ox*ox + oy*oy + oz*oz - radius*radius;
+            double disc = b*b - c;
+            if(disc <= 0) return NONE;
+            double root = Math.sqrt(disc);
+            return clip(-b - root, -b + root, length);
+        }
+    }
+
+    //Finite right circular cylinder between two axis end points
+    public static final class Cylinder implements Solid{
+        final double[] base;
+        final double[] axis;
+        final double height;
+        final double radius;
+
+        public Cylinder(double x0, double y0, double z0, double x1, double y1, double z1, double radius){
+            if(!(radius > 0)){
+                throw new IllegalArgumentException("Cylinder radius must be greater than zero.");
+            }
+            base = new double[]{x0, y0, z0};
+            double[] a = {x1 - x0, y1 - y0, z1 - z0};
+            height = Math.sqrt(dot(a, a));
+            if(!(height > 0)){
+                throw new IllegalArgumentException("Cylinder axis end points must differ.");
+            }
+            axis = new double[]{a[0]/height, a[1]/height, a[2]/height};
+            this.radius = radius;
+        }
+
+        @Override
+        public double[] bounds(){
+            double[] b = new double[6];
+            for(int k = 0; k < 3; k++){
+                //Extent of the end discs along axis k
+                double e = radius*Math.sqrt(Math.max(0, 1 - axis[k]*axis[k]));
+                double end = base[k] + axis[k]*height;
+                b[k] = Math.min(base[k], end) - e;
+                b[k + 3] = Math.max(base[k], end) + e;
+            }
+            return b;
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double[] p = {o[0] - base[0], o[1] - base[1], o[2] - base[2]};
+            double pa = dot(p, axis);
+            double da = dot(d, axis);
+            //Along the axis: 0 <= pa + t*da <= height
+            double t0 = 0;
+            double t1 = length;
+            if(da == 0){
+                if(pa < 0 || pa > height) return NONE;
+            }else{
+                double near = -pa/da;
+                double far = (height - pa)/da;
+                t0 = Math.max(t0, Math.min(near, far));
+                t1 = Math.min(t1, Math.max(near, far));
+            }
+            //Radially: |p_perp + t*d_perp| <= radius
+            double[] pp = {p[0] - pa*axis[0], p[1] - pa*axis[1], p[2] - pa*axis[2]};
+            double[] dp = {d[0] - da*axis[0], d[1] - da*axis[1], d[2] - da*axis[2]};
+            double a = dot(dp, dp);
+            double b = dot(pp, dp);
+            double c = dot(pp, pp) - radius*radius;
+            if(a < 1e-300){
+                if(c > 0) return NONE;
+            }else{
+                double disc = b*b - a*c;
+                if(disc <= 0) return NONE;
+                double root = Math.sqrt(disc);
+                t0 = Math.max(t0, (-b - root)/a);
+                t1 = Math.min(t1, (-b + root)/a);
+            }
+            return t0 < t1 ? new double[]{t0, t1} : NONE;
+        }
+    }
+
+    //Union of solids
+    public static final class Union implements Solid{
+        final Solid[] parts;
+
+        public Union(Solid... parts){
+            if(parts.length == 0){
+                throw new IllegalArgumentException("A union needs at least one solid.");
+            }
+            this.parts = parts.clone();
+        }
+
+        @Override
+        public double[] bounds(){
+            double[] b = parts[0].bounds();
+            for(int i = 1; i < parts.length; i++){
+                b = enclose(b, parts[i].bounds());
+            }
+            return b;
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double[] result = parts[0].intervals(o, d, length);
+            for(int i = 1; i < parts.length; i++){
+                result = combine(result, parts[i].intervals(o, d, length), UNION);
+            }
+            return result;
+        }
+    }
+
+    //Intersection of two solids
+    public static final class Intersection implements Solid{
+        final Solid a;
+        final Solid b;
+
+        public Intersection(Solid a, Solid b){
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public double[] bounds(){
+            double[] ba = a.bounds();
+            double[] bb = b.bounds();
+            return new double[]{Math.max(ba[0], bb[0]), Math.max(ba[1], bb[1]), Math.max(ba[2], bb[2]),
+                    Math.min(ba[3], bb[3]), Math.min(ba[4], bb[4]), Math.min(ba[5], bb[5])};
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double[] first = a.intervals(o, d, length);
+            return first.length == 0 ? NONE : combine(first, b.intervals(o, d, length), INTERSECTION);
+        }
+    }
+
+    //Solid a with solid b removed (for example a wall minus a penetration)
+    public static final class Difference implements Solid{
+        final Solid a;
+        final Solid b;
+
+        public Difference(Solid a, Solid b){
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public double[] bounds(){
+            return a.bounds();
+        }
+
+        @Override
+        public double[] intervals(double[] o, double[] d, double length){
+            double[] first = a.intervals(o, d, length);
+            return first.length == 0 ? NONE : combine(first, b.intervals(o, d, length), DIFFERENCE);
+        }
+    }
+
+    //A region of space filled with one material
+    public static final class Cell{
+        final Solid solid;
+        final Material material;
+        final String name;
+
+        public Cell(String name, Solid solid, Material material){
+            this.name = name;
+            this.solid = solid;
+            this.material = material;
+        }
+    }
+
+    //An isotropic point source
+    public static final class Source{
+        final double[] position;
+        final PhotonSource spectrum;
+
+        public Source(double x, double y, double z, PhotonSource spectrum){
+            this.position = new double[]{x, y, z};
+            this.spectrum = spectrum;
+        }
+    }
+
+    private final Cell[] cells;
+    //Flattened BVH: per node bounds, and either children (left, right) or a leaf range into order
+    private final double[][] nodeBounds;
+    private final int[] nodeLeft;
+    private final int[] nodeRight;
+    private final int[] leafStart;
+    private final int[] leafEnd;
+    private final int[] order;
+    private int nodeCount;
+
+    //Builds the BVH for a scene of non-overlapping cells
+    public PointKernelTracer(List<Cell> scene){
+        cells = scene.toArray(new Cell[0]);
+        int n = cells.length;
+        double[][] bounds = new double[n][];
+        double[][] centers = new double[n][3];
+        order = new int[n];
+        for(int i = 0; i < n; i++){
+            bounds[i] = cells[i].solid.bounds();
+            for(int k = 0; k < 3; k++){
+                centers[i][k] = 0.5*(bounds[i][k] + bounds[i][k + 3]);
+            }
+            order[i] = i;
+        }
+        int maxNodes = Math.max(1, 2*n);
+        nodeBounds = new double[maxNodes][];
+        nodeLeft = new int[maxNodes];
+        nodeRight = new int[maxNodes];
+        leafStart = new int[maxNodes];
+        leafEnd = new int[maxNodes];
+        if(n > 0) build(bounds, centers, 0, n);
+    }
+
+    //Path length (cm) through each cell along the segment from a to b, indexed like the scene
+    public double[] pathLengths(double[] a, double[] b){
+        double[] lengths = new double[cells.length];
+        trace(a, b, (cell, length) -> lengths[cell] += length);
+        return lengths;
+    }
+
+    //Flux (photons/cm^2/s) at a detector point from every source
+    public double flux(List<Source> sources, double[] detector){
+        double total = 0;
+        double[] tau = null;
+        for(Source source: sources){
+            PhotonSource spectrum = source.spectrum;
+            double[] d = source.position;
+            double r = Math.sqrt(sq(detector[0] - d[0]) + sq(detector[1] - d[1]) + sq(detector[2] - d[2]));
+            if(r < MIN_DISTANCE) return Double.POSITIVE_INFINITY;
+            if(tau == null || tau.length != spectrum.lineCount()) tau = new double[spectrum.lineCount()];
+            Arrays.fill(tau, 0);
+            double[] opticalDepth = tau;
+            trace(d, detector, (cell, length) -> {
+                double[] mu = spectrum.mu(cells[cell].material);
+                for(int k = 0; k < opticalDepth.length; k++){
+                    opticalDepth[k] += mu[k]*length;
+                }
+            });
+            double rate = 0;
+            for(int k = 0; k < tau.length; k++){
+                rate += spectrum.photonRate(k)*Math.exp(-tau[k]);
+            }
+            total += ShieldingCalculator.computeFlux(1, r, rate);
+        }
+        return total;
+    }
+
+    //Flux at every detector (detectors[i] = {x, y, z}), computed in parallel on the common pool
+    public double[] flux(List<Source> sources, double[][] detectors){
+        return flux(sources, detectors, ForkJoinPool.commonPool());
+    }
+
+    public double[] flux(List<Source> sources, double[][] detectors, ForkJoinPool pool){
+        double[] out = new double[detectors.length];
+        pool.invoke(new DetectorTask(this, sources, detectors, out, 0, detectors.length));
+        return out;
+    }
+
+    public int cellCount(){
+        return cells.length;
+    }
+
+    //Receives the path length through one cell
+    private interface Crossing{
+        void accept(int cell, double length);
+    }
+
+    //Visits every cell the segment a-b passes through, with the length inside it
+    private void trace(double[] a, double[] b, Crossing crossing){
+        if(cells.length == 0) return;
+        double[] d = {b[0] - a[0], b[1] - a[1], b[2] - a[2]};
+        double length = Math.sqrt(dot(d, d));
+        if(length < MIN_DISTANCE) return;
+        for(int k = 0; k < 3; k++){
+            d[k] /= length;
+        }
+        double[] inv = {1/d[0], 1/d[1], 1/d[2]};
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while(top > 0){
+            int node = stack[--top];
+            if(!hitsBox(nodeBounds[node], a, d, inv, length)) continue;
+            if(leafEnd[node] > leafStart[node]){
+                for(int i = leafStart[node]; i < leafEnd[node]; i++){
+                    int cell = order[i];
+                    double[] intervals = cells[cell].solid.intervals(a, d, length);
+                    double inside = 0;
+                    for(int j = 0; j < intervals.length; j += 2){
+                        inside += intervals[j + 1] - intervals[j];
+                    }
+                    if(inside > 0) crossing.accept(cell, inside);
+                }
+            }else{
+                if(top + 2 > stack.length) stack = Arrays.copyOf(stack, 2*stack.length);
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeRight[node];
+            }
+        }
+    }
+
+    //Builds the subtree over order[from, to) and returns its node index
+    private int build(double[][] bounds, double[][] centers, int from, int to){
+        int node = nodeCount++;
+        double[] box = bounds[order[from]].clone();
+        for(int i = from + 1; i < to; i++){
+            box = enclose(box, bounds[order[i]]);
+        }
+        nodeBounds[node] = box;
+        if(to - from <= LEAF_SIZE){
+            leafStart[node] = from;
+            leafEnd[node] = to;
+            return node;
+        }
+        //Split at the median center along the longest axis of the centers
+        double[] lo = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] hi = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for(int i = from; i < to; i++){
+            for(int k = 0; k < 3; k++){
+                lo[k] = Math.min(lo[k], centers[order[i]][k]);
+                hi[k] = Math.max(hi[k], centers[order[i]][k]);
+            }
+        }
+        int axis = 0;
+        for(int k = 1; k < 3; k++){
+            if(hi[k] - lo[k] > hi[axis] - lo[axis]) axis = k;
+        }
+        int splitAxis = axis;
+        Integer[] range = new Integer[to - from];
+        for(int i = from; i < to; i++){
+            range[i - from] = order[i];
+        }
+        Arrays.sort(range, (x, y) -> Double.compare(centers[x][splitAxis], centers[y][splitAxis]));
+        for(int i = from; i < to; i++){
+            order[i] = range[i - from];
+        }
+        int mid = (from + to) >>> 1;
+        nodeLeft[node] = build(bounds, centers, from, mid);
+        nodeRight[node] = build(bounds, centers, mid, to);
+        return node;
+    }
+
+    //Slab test of the segment o + t*d, 0 <= t <= length, against a box
+    private static boolean hitsBox(double[] box, double[] o, double[] d, double[] inv, double length){
+        double t0 = 0;
+        double t1 = length;
+        for(int k = 0; k < 3; k++){
+            if(d[k] == 0){
+                if(o[k] < box[k] || o[k] > box[k + 3]) return false;
+                continue;
+            }
+            double near = (box[k] - o[k])*inv[k];
+            double far = (box[k + 3] - o[k])*inv[k];
+            if(near > far){
+                double swap = near;
+                near = far;
+                far = swap;
+            }
+            t0 = Math.max(t0, near);
+            t1 = Math.min(t1, far);
+            if(t0 > t1) return false;
+        }
+        return true;
+    }
+
+    //Combines two sorted, disjoint interval lists by sweeping their end points
+    private static double[] combine(double[] a, double[] b, int op){
+        double[] out = new double[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        boolean inA = false;
+        boolean inB = false;
+        boolean inside = false;
+        double start = 0;
+        while(i < a.length || j < b.length){
+            double t;
+            if(j >= b.length || (i < a.length && a[i] <= b[j])){
+                t = a[i];
+                inA = (i & 1) == 0;
+                i++;
+            }else{
+                t = b[j];
+                inB = (j & 1) == 0;
+                j++;
+            }
+            boolean now = op == UNION ? inA || inB : op == INTERSECTION ? inA && inB : inA && !inB;
+            if(now && !inside){
+                start = t;
+            }else if(!now && inside && t > start){
+                out[n++] = start;
+                out[n++] = t;
+            }
+            inside = now;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    //Interval [t0, t1] clipped to [0, length]
+    private static double[] clip(double t0, double t1, double length){
+        t0 = Math.max(t0, 0);
+        t1 = Math.min(t1, length);
+        return t0 < t1 ? new double[]{t0, t1} : NONE;
+    }
+
+    private static double[] enclose(double[] a, double[] b){
+        return new double[]{Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.min(a[2], b[2]),
+                Math.max(a[3], b[3]), Math.max(a[4], b[4]), Math.max(a[5], b[5])};
+    }
+
+    private static double dot(double[] a, double[] b){
+        return a[0]*b[0] + a[1]*b[1] + a[2]*b[2];
+    }
+
+    private static double sq(double x){
+        return x*x;
+    }
+
+    //Computes detectors [from, to), splitting large ranges in half
+    private static final class DetectorTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final PointKernelTracer tracer;
+        private final List<Source> sources;
+        private final double[][] detectors;
+        private final double[] out;
+        private final int from;
+        private final int to;
+
+        DetectorTask(PointKernelTracer tracer, List<Source> sources, double[][] detectors, double[] out, int from, int to){
+            this.tracer = tracer;
+            this.sources = sources;
+            this.detectors = detectors;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from > DETECTORS_PER_TASK){
+                int mid = (from + to) >>> 1;
+                invokeAll(new DetectorTask(tracer, sources, detectors, out, from, mid),
+                        new DetectorTask(tracer, sources, detectors, out, mid, to));
+                return;
+            }
+            for(int i = from; i < to; i++){
+                out[i] = tracer.flux(sources, detectors[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+import java.util.*;
+
+/**
+ * Scenario.java
+ *
+ * Immutable execution plan for one reproducible shielding scenario (scenarios/*.json).
+ *
+ * A plan is compiled once by ScenarioLoader and holds everything the runner needs:
+ * - The photon source (manual line or library isotope)
+ * - Concentric spherical geometry: source cavity radius, evaluation radius and fixed layers
+ * - Resolved candidate Materials with their relative cost index
+ * - mu (1/cm) of every candidate at every source line, and the optical depth of the fixed layers
+ * - Target converted to an absolute detector flux, constraints, ranking mode and solver settings
+ *
+ * Inactive constraints and weights are stored as NaN.
+ */
+public final class Scenario{
+    //Supported calculation mode
+    public static final String MATERIAL_OPTIMIZATION = "material_optimization";
+    //Supported ranking modes
+    public static final String MINIMUM_THICKNESS = "minimum_thickness";
+    public static final String MINIMUM_MASS = "minimum_mass";
+    public static final String MINIMUM_COST = "minimum_cost";
+    public static final String BALANCED = "balanced";
+
+    final String id;
+    final String description;
+    final String calculationMode;
+    final PhotonSource source;
+
+    //Geometry in cm; fixed layers are ordered from the source outward
+    final double cavityRadius;
+    final double evaluationRadius;
+    private final Layer[] layers;
+
+    //Candidates, their relative cost index and mu[candidate][line]
+    private final String[] candidateKeys;
+    private final Material[] candidates;
+    private final double[] relativeCost;
+    private final double[][] candidateMu;
+    //Optical depth of the fixed layers at each line
+    private final double[] fixedDepth;
+
+    //Target as given, and as the detector flux (photons/cm^2/s) the design must not exceed
+    final String targetType;
+    final double targetValue;
+    final double unshieldedFlux;
+    final double targetFlux;
+
+    //Engineering constraints (NaN = inactive)
+    final double maxThickness;
+    final double maxMassPerArea;
+    final double maxCostPerArea;
+
+    //Ranking mode and balanced weights (NaN unless balanced)
+    final String optimizationMode;
+    final double thicknessWeight;
+    final double massWeight;
+    final double costWeight;
+
+    //Solver settings
+    final boolean applyBuildup;
+    final double calculationMaxThickness;
+
+    Scenario(String id, String description, String calculationMode, PhotonSource source,
+             double cavityRadius, double evaluationRadius, List<Layer> layers, List<String> candidateKeys,
+             String targetType, double targetValue, double maxThickness, double maxMassPerArea, double maxCostPerArea,
+             String optimizationMode, double[] weights, boolean applyBuildup, double calculationMaxThickness){
+        if(!MATERIAL_OPTIMIZATION.equals(calculationMode)){
+            throw new IllegalArgumentException("Unsupported scenario calculation mode: " + calculationMode);
+        }
+        if(cavityRadius < 0){
+            throw new IllegalArgumentException("Source cavity radius cannot be negative.");
+        }
+        if(!(evaluationRadius > cavityRadius)){
+            throw new IllegalArgumentException("Evaluation radius must be greater than the source cavity radius.");
+        }
+        double outerRadius = cavityRadius;
+        for(Layer layer: layers){
+            if(!(layer.thickness > 0)){
+                throw new IllegalArgumentException("Shield layer thickness must be greater than zero.");
+            }
+            outerRadius += layer.thickness;
+        }
+        if(outerRadius >= evaluationRadius){
+            throw new IllegalArgumentException("Evaluation radius must be beyond the outer shield radius.");
+        }
+        if(!layers.isEmpty()){
+            throw new IllegalArgumentException("Material-optimization scenarios cannot contain fixed shield layers.");
+        }
+        if(candidateKeys.isEmpty()){
+            throw new IllegalArgumentException("Material optimization requires at least one candidate material.");
+        }
+        if(new HashSet<>(candidateKeys).size() != candidateKeys.size()){
+            throw new IllegalArgumentException("Candidate material keys must be unique.");
+        }
+        checkOptional(maxThickness, "Maximum design thickness must be greater than zero.");
+        checkOptional(maxMassPerArea, "Maximum mass per area must be greater than zero.");
+        checkOptional(maxCostPerArea, "Maximum relative cost index per area must be greater than zero.");
+        if(!(MINIMUM_THICKNESS.equals(optimizationMode) || MINIMUM_MASS.equals(optimizationMode)
+                || MINIMUM_COST.equals(optimizationMode) || BALANCED.equals(optimizationMode))){
+            throw new IllegalArgumentException("Unsupported scenario optimization mode: " + optimizationMode);
+        }
+        if(BALANCED.equals(optimizationMode)){
+            if(weights == null){
+                throw new IllegalArgumentException("Balanced optimization requires optimization weights.");
+            }
+            if(weights[0] < 0 || weights[1] < 0 || weights[2] < 0){
+                throw new IllegalArgumentException("Optimization weights cannot be negative.");
+            }
+            if(weights[0] + weights[1] + weights[2] == 0){
+                throw new IllegalArgumentException("At least one optimization weight must be greater than zero.");
+            }
+        }else if(weights != null){
+            throw new IllegalArgumentException("Optimization weights should only be supplied for balanced optimization.");
+        }
+        double radialSpace = evaluationRadius - cavityRadius;
+        if(Double.isNaN(calculationMaxThickness)){
+            calculationMaxThickness = radialSpace;
+        }else if(!(calculationMaxThickness > 0)){
+            throw new IllegalArgumentException("Calculation maximum thickness must be greater than zero.");
+        }else if(calculationMaxThickness > radialSpace){
+            throw new IllegalArgumentException("Calculation maximum thickness cannot exceed the radial space "
+                    + "between the source cavity and evaluation location.");
+        }
+
+        this.id = id;
+        this.description = description;
+        this.calculationMode = calculationMode;
+        this.source = source;
+        this.cavityRadius = cavityRadius;
+        this.evaluationRadius = evaluationRadius;
+        this.layers = layers.toArray(new Layer[0]);
+        this.maxThickness = maxThickness;
+        this.maxMassPerArea = maxMassPerArea;
+        this.maxCostPerArea = maxCostPerArea;
+        this.optimizationMode = optimizationMode;
+        this.thicknessWeight = weights == null ? Double.NaN : weights[0];
+        this.massWeight = weights == null ? Double.NaN : weights[1];
+        this.costWeight = weights == null ? Double.NaN : weights[2];
+        this.applyBuildup = applyBuildup;
+        this.calculationMaxThickness = calculationMaxThickness;
+
+        //Resolve candidates and precompute mu per line
+        int n = candidateKeys.size();
+        this.candidateKeys = candidateKeys.toArray(new String[0]);
+        this.candidates = new Material[n];
+        this.relativeCost = new double[n];
+        this.candidateMu = new double[n][];
+        StringBuilder unknown = new StringBuilder();
+        for(int c = 0; c < n; c++){
+            String key = this.candidateKeys[c];
+            Material mat = MaterialLibrary.getMaterial(key);
+            if(mat == null){
+                unknown.append(unknown.length() == 0 ? "" : ", ").append(key);
+                continue;
+            }
+            double cost = MaterialCostLibrary.getRelativeCostIndex(key);
+            if(Double.isNaN(cost)){
+                throw new IllegalArgumentException("No relative cost data found for " + mat.name + ".");
+            }
+            candidates[c] = mat;
+            relativeCost[c] = cost;
+            candidateMu[c] = source.mu(mat).clone();
+        }
+        if(unknown.length() > 0){
+            throw new IllegalArgumentException("Scenario contains unknown material keys: " + unknown);
+        }
+        this.fixedDepth = new double[source.lineCount()];
+        for(Layer layer: this.layers){
+            double[] mu = source.mu(layer.material);
+            for(int k = 0; k < fixedDepth.length; k++){
+                fixedDepth[k] += mu[k]*layer.thickness;
+            }
+        }
+
+        //Every target type becomes "final flux <= targetFlux"
+        this.targetType = targetType;
+        this.targetValue = targetValue;
+        this.unshieldedFlux = ShieldingCalculator.computeFlux(1, evaluationRadius, source.totalPhotonRate());
+        switch(targetType){
+            case "flux":
+                if(!(targetValue > 0)) throw new IllegalArgumentException("Target flux must be greater than zero.");
+                this.targetFlux = targetValue;
+                break;
+            case "transmission":
+                if(!(targetValue > 0)) throw new IllegalArgumentException("Target transmission must be greater than zero.");
+                if(targetValue > 1) throw new IllegalArgumentException("Target transmission cannot be greater than 1.");
+                this.targetFlux = unshieldedFlux*targetValue;
+                break;
+            case "reduction_factor":
+                if(!(targetValue >= 1)) throw new IllegalArgumentException("Reduction factor must be greater than or equal to 1.");
+                this.targetFlux = unshieldedFlux/targetValue;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported scenario target type: " + targetType);
+        }
+    }
+
+    public String id(){
+        return id;
+    }
+
+    public int candidateCount(){
+        return candidates.length;
+    }
+
+    public String candidateKey(int c){
+        return candidateKeys[c];
+    }
+
+    public Material candidate(int c){
+        return candidates[c];
+    }
+
+    double relativeCost(int c){
+        return relativeCost[c];
+    }
+
+    //mu (1/cm) of candidate c at every source line; shared, callers must not modify it
+    double[] candidateMu(int c){
+        return candidateMu[c];
+    }
+
+    //Optical depth of the fixed layers at every source line; shared, callers must not modify it
+    double[] fixedDepth(){
+        return fixedDepth;
+    }
+
+    //Fixed layers followed by one candidate layer of the given thickness
+    ArrayList<Layer> stack(int c, double thickness){
+        ArrayList<Layer> stack = new ArrayList<>(layers.length + 1);
+        for(Layer layer: layers){
+            stack.add(new Layer(layer.material, layer.thickness));
+        }
+        stack.add(new Layer(candidates[c], thickness));
+        return stack;
+    }
+
+    //Human-readable target description, matching thickness_calculator.py
+    public String targetDescription(){
+        switch(targetType){
+            case "transmission": return "Transmission target <= " + format(targetValue);
+            case "reduction_factor": return "Reduction factor target >= " + format(targetValue);
+            default: return "Flux target <= " + format(targetValue) + " photons/cm^2/s";
+        }
+    }
+
+    private static String format(double value){
+        return String.format("%.6g", value);
+    }
+
+    private static void checkOptional(double value, String message){
+        if(!Double.isNaN(value) && !(value > 0)){
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
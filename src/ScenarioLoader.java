@@ -0,0 +1,199 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * ScenarioLoader.java
+ *
+ * Reads and validates scenario JSON files written by scenario_io.py (schema version 1.0)
+ * and compiles them into immutable Scenario execution plans.
+ *
+ * Validation follows scenario_models.py: keys are normalized to lower case, required
+ * objects and fields must be present, and domain checks are applied when the plan is compiled.
+ * Malformed files throw IllegalArgumentException naming the offending field.
+ */
+public class ScenarioLoader{
+
+    //Scenario schema versions this loader understands
+    private static final String[] SUPPORTED_SCHEMA_VERSIONS = {"1.0"};
+
+    //Reads and compiles one scenario file
+    public static Scenario load(Path file) throws IOException{
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        try{
+            return parse(text);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException(file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    //Compiles a scenario from JSON text
+    public static Scenario parse(String text){
+        return compile(Json.parseObject(text));
+    }
+
+    //Lists the *.json files of a directory in name order
+    public static List<Path> listScenarioFiles(Path directory) throws IOException{
+        List<Path> files = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")){
+            for(Path file: stream){
+                if(Files.isRegularFile(file)) files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    //Compiles a parsed scenario object into an execution plan
+    public static Scenario compile(Map<String, Object> data){
+        Object version = data.get("schema_version");
+        if(!(version instanceof String) || !Arrays.asList(SUPPORTED_SCHEMA_VERSIONS).contains(((String) version).trim())){
+            throw new IllegalArgumentException("Unsupported scenario schema version: " + version);
+        }
+        String id = nonEmpty(string(data, "scenario_id").toLowerCase(), "Scenario ID cannot be empty.");
+        String description = nonEmpty(string(data, "description"), "Scenario description cannot be empty.");
+        String calculationMode = string(data, "calculation_mode");
+
+        Map<String, Object> sourceData = object(data, "source");
+        Map<String, Object> geometryData = object(data, "geometry");
+        Map<String, Object> targetData = object(data, "target");
+        Map<String, Object> constraintsData = object(data, "constraints");
+        Map<String, Object> optimizationData = object(data, "optimization");
+        Map<String, Object> settingsData = object(data, "deterministic_settings");
+
+        PhotonSource source = source(sourceData);
+
+        if(!"concentric_spherical".equals(geometryData.get("type"))){
+            throw new IllegalArgumentException("Unsupported scenario geometry type: " + geometryData.get("type"));
+        }
+        ArrayList<Layer> layers = new ArrayList<>();
+        Object layerData = geometryData.containsKey("layers") ? geometryData.get("layers") : new ArrayList<>();
+        if(!(layerData instanceof List)){
+            throw new IllegalArgumentException("Scenario geometry layers must be a list.");
+        }
+        for(Object item: (List<?>) layerData){
+            if(!(item instanceof Map)){
+                throw new IllegalArgumentException("Scenario geometry layers must be JSON objects.");
+            }
+            Map<String, Object> layer = cast(item);
+            String key = nonEmpty(string(layer, "material_key").toLowerCase(), "Shield layer material key cannot be empty.");
+            Material mat = MaterialLibrary.getMaterial(key);
+            if(mat == null){
+                throw new IllegalArgumentException("Scenario contains unknown material keys: " + key);
+            }
+            layers.add(new Layer(mat, number(layer, "thickness_cm")));
+        }
+
+        Object keyData = data.get("candidate_material_keys");
+        if(!(keyData instanceof List)){
+            throw new IllegalArgumentException("Scenario candidate_material_keys must be a list.");
+        }
+        List<String> candidateKeys = new ArrayList<>();
+        for(Object key: (List<?>) keyData){
+            if(!(key instanceof String)){
+                throw new IllegalArgumentException("Candidate material keys must be strings.");
+            }
+            candidateKeys.add(nonEmpty(((String) key).toLowerCase(), "Candidate material keys cannot be empty."));
+        }
+
+        String targetType = string(targetData, "type");
+        String targetField;
+        switch(targetType){
+            case "flux": targetField = "target_flux"; break;
+            case "transmission": targetField = "target_transmission"; break;
+            case "reduction_factor": targetField = "reduction_factor"; break;
+            default: throw new IllegalArgumentException("Unsupported scenario target type: " + targetType);
+        }
+
+        double[] weights = null;
+        Object weightData = optimizationData.get("weights");
+        if(weightData != null){
+            if(!(weightData instanceof Map)){
+                throw new IllegalArgumentException("Optimization weights must be a JSON object or null.");
+            }
+            Map<String, Object> w = cast(weightData);
+            weights = new double[]{number(w, "thickness_weight"), number(w, "mass_weight"), number(w, "cost_weight")};
+        }
+
+        Object buildup = settingsData.getOrDefault("apply_buildup", Boolean.FALSE);
+        if(!(buildup instanceof Boolean)){
+            throw new IllegalArgumentException("deterministic_settings.apply_buildup must be true or false.");
+        }
+
+        return new Scenario(id, description, calculationMode, source,
+                number(geometryData, "source_cavity_radius_cm"), number(geometryData, "evaluation_radius_cm"),
+                layers, candidateKeys, targetType, number(targetData, targetField),
+                optionalNumber(constraintsData, "max_thickness_cm"),
+                optionalNumber(constraintsData, "max_mass_per_area_g_per_cm2"),
+                optionalNumber(constraintsData, "max_relative_cost_index_per_area"),
+                string(optimizationData, "mode"), weights, (Boolean) buildup,
+                optionalNumber(settingsData, "calculation_max_thickness_cm"));
+    }
+
+    //Builds the runtime source from a manual or isotope source object
+    private static PhotonSource source(Map<String, Object> data){
+        Object type = data.get("type");
+        if("manual".equals(type)){
+            double energy = number(data, "photon_energy_mev");
+            double rate = number(data, "photon_rate_per_s");
+            if(!(energy > 0)){
+                throw new IllegalArgumentException("Manual photon energy must be greater than zero.");
+            }
+            if(rate < 0){
+                throw new IllegalArgumentException("Manual photon emission rate cannot be negative.");
+            }
+            return new PhotonSource("Manual", rate, new double[]{energy}, new double[]{1.0});
+        }
+        if("isotope".equals(type)){
+            String key = nonEmpty(string(data, "isotope_key").toLowerCase(), "Isotope source key cannot be empty.");
+            double activity = number(data, "activity_bq");
+            if(activity < 0){
+                throw new IllegalArgumentException("Isotope source activity cannot be negative.");
+            }
+            return SourceLibrary.createIsotopeSource(key, activity);
+        }
+        throw new IllegalArgumentException("Unsupported scenario source type: " + type);
+    }
+
+    private static Map<String, Object> object(Map<String, Object> data, String key){
+        Object value = data.get(key);
+        if(!(value instanceof Map)){
+            throw new IllegalArgumentException("Scenario " + key + " must be a JSON object.");
+        }
+        return cast(value);
+    }
+
+    private static String string(Map<String, Object> data, String key){
+        Object value = data.get(key);
+        if(!(value instanceof String)){
+            throw new IllegalArgumentException("Missing or non-string field \"" + key + "\".");
+        }
+        return ((String) value).trim();
+    }
+
+    private static double number(Map<String, Object> data, String key){
+        Object value = data.get(key);
+        if(!(value instanceof Double)){
+            throw new IllegalArgumentException("Missing or non-numeric field \"" + key + "\".");
+        }
+        return (Double) value;
+    }
+
+    //Returns NaN for an absent or null field
+    private static double optionalNumber(Map<String, Object> data, String key){
+        return data.get(key) == null ? Double.NaN : number(data, key);
+    }
+
+    private static String nonEmpty(String value, String message){
+        if(value.isEmpty()){
+            throw new IllegalArgumentException(message);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cast(Object value){
+        return (Map<String, Object>) value;
+    }
+}
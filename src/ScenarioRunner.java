@@ -0,0 +1,396 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ScenarioRunner.java
+ *
+ * Executes compiled Scenario plans, following scenario_runner.py and constraint_optimizer.py.
+ *
+ * For every candidate material:
+ * - Solve the minimum single-layer thickness that brings the detector flux down to the target
+ *   (buildup-corrected if requested and valid within 40 mfp, otherwise narrow-beam with a warning)
+ * - FAILED if no thickness within the calculation limit reaches the target
+ * - REJECTED if the thickness, mass per area or relative cost per area breaks a constraint
+ * - ELIGIBLE otherwise, then ranked by the scenario's optimization mode
+ *
+ * Flux evaluations reuse the plan's precomputed mu values, so a solve never interpolates.
+ * Directories are executed concurrently with one task per scenario file.
+ */
+public class ScenarioRunner{
+
+    public static final String ELIGIBLE = "ELIGIBLE";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    //Thickness tolerance (cm) for the design solves
+    private static final double TOLERANCE = 1e-9;
+
+    //Result for one candidate material
+    public static final class Candidate{
+        final String key;
+        final Material material;
+        final String status;
+        //Required thickness (cm) and detector flux at that thickness; NaN when FAILED
+        final double thickness;
+        final double finalFlux;
+        final double uncollidedFlux;
+        //Buildup-corrected flux, NaN when buildup was not used
+        final double buildupFlux;
+        final boolean buildupUsed;
+        final double massPerArea;
+        final double costPerArea;
+        final List<String> reasons;
+        final List<String> warnings;
+        //Normalized metrics and score (NaN unless ELIGIBLE)
+        double normalizedThickness = Double.NaN;
+        double normalizedMass = Double.NaN;
+        double normalizedCost = Double.NaN;
+        double score = Double.NaN;
+
+        Candidate(String key, Material material, String status, double thickness, double finalFlux,
+                  double uncollidedFlux, double buildupFlux, boolean buildupUsed, double massPerArea,
+                  double costPerArea, List<String> reasons, List<String> warnings){
+            this.key = key;
+            this.material = material;
+            this.status = status;
+            this.thickness = thickness;
+            this.finalFlux = finalFlux;
+            this.uncollidedFlux = uncollidedFlux;
+            this.buildupFlux = buildupFlux;
+            this.buildupUsed = buildupUsed;
+            this.massPerArea = massPerArea;
+            this.costPerArea = costPerArea;
+            this.reasons = Collections.unmodifiableList(reasons);
+            this.warnings = Collections.unmodifiableList(warnings);
+        }
+
+        public String key(){
+            return key;
+        }
+
+        public String status(){
+            return status;
+        }
+
+        public double thickness(){
+            return thickness;
+        }
+
+        public double massPerArea(){
+            return massPerArea;
+        }
+
+        public double costPerArea(){
+            return costPerArea;
+        }
+
+        public double score(){
+            return score;
+        }
+
+        public List<String> reasons(){
+            return reasons;
+        }
+
+        public List<String> warnings(){
+            return warnings;
+        }
+    }
+
+    //Result for one scenario: candidates in scenario order and eligible candidates in rank order
+    public static final class Result{
+        final Scenario scenario;
+        final Candidate[] candidates;
+        final Candidate[] ranking;
+        final String selectionReason;
+        final long elapsedNanos;
+
+        Result(Scenario scenario, Candidate[] candidates, Candidate[] ranking, String selectionReason, long elapsedNanos){
+            this.scenario = scenario;
+            this.candidates = candidates;
+            this.ranking = ranking;
+            this.selectionReason = selectionReason;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Scenario scenario(){
+            return scenario;
+        }
+
+        public int candidateCount(){
+            return candidates.length;
+        }
+
+        public Candidate candidate(int c){
+            return candidates[c];
+        }
+
+        public Candidate[] ranking(){
+            return ranking.clone();
+        }
+
+        //Best candidate, or null if none is eligible
+        public Candidate best(){
+            return ranking.length == 0 ? null : ranking[0];
+        }
+
+        public String selectionReason(){
+            return selectionReason;
+        }
+
+        public long elapsedNanos(){
+            return elapsedNanos;
+        }
+    }
+
+    //Outcome of one scenario file in a directory run: a result or the error that stopped it
+    public static final class Outcome{
+        final Path file;
+        final Result result;
+        final Exception error;
+
+        Outcome(Path file, Result result, Exception error){
+            this.file = file;
+            this.result = result;
+            this.error = error;
+        }
+
+        public Path file(){
+            return file;
+        }
+
+        public Result result(){
+            return result;
+        }
+
+        public Exception error(){
+            return error;
+        }
+    }
+
+    //Runs one compiled scenario
+    public static Result run(Scenario scenario){
+        long start = System.nanoTime();
+        int n = scenario.candidateCount();
+        Candidate[] candidates = new Candidate[n];
+        for(int c = 0; c < n; c++){
+            candidates[c] = evaluate(scenario, c);
+        }
+        Candidate[] ranking = rank(scenario, candidates);
+        String reason = ranking.length == 0 ? null : selectionReason(scenario, ranking[0], ranking.length);
+        return new Result(scenario, candidates, ranking, reason, System.nanoTime() - start);
+    }
+
+    //Loads and runs every *.json scenario in a directory, one task per file, using the given number of threads.
+    //Outcomes are returned in file-name order; a bad file does not stop the others.
+    public static List<Outcome> runDirectory(Path directory, int threads) throws IOException{
+        List<Path> files = ScenarioLoader.listScenarioFiles(directory);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+        try{
+            return runAll(files, pool);
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    //Loads and runs the given scenario files on an executor, one task per file
+    public static List<Outcome> runAll(List<Path> files, ExecutorService pool){
+        List<Future<Outcome>> futures = new ArrayList<>(files.size());
+        for(Path file: files){
+            futures.add(pool.submit(() -> {
+                try{
+                    return new Outcome(file, run(ScenarioLoader.load(file)), null);
+                }catch(IOException | RuntimeException e){
+                    return new Outcome(file, null, e);
+                }
+            }));
+        }
+        List<Outcome> outcomes = new ArrayList<>(files.size());
+        for(int i = 0; i < futures.size(); i++){
+            try{
+                outcomes.add(futures.get(i).get());
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running scenarios.", e);
+            }catch(ExecutionException e){
+                outcomes.add(new Outcome(files.get(i), null, (Exception) e.getCause()));
+            }
+        }
+        return outcomes;
+    }
+
+    //Solves the required thickness of one candidate and applies the constraints
+    private static Candidate evaluate(Scenario scenario, int c){
+        String key = scenario.candidateKey(c);
+        Material mat = scenario.candidate(c);
+        List<String> reasons = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        double unshielded = scenario.unshieldedFlux;
+        double target = scenario.targetFlux;
+
+        double thickness;
+        boolean buildupUsed = false;
+        if(unshielded == 0){
+            warnings.add("Unshielded source flux is zero; no shielding is required.");
+            thickness = 0;
+        }else if(target >= unshielded){
+            warnings.add("Target flux is greater than or equal to the unshielded flux; no shielding is required.");
+            thickness = 0;
+        }else{
+            thickness = Double.NaN;
+            if(scenario.applyBuildup){
+                try{
+                    double high = Math.min(scenario.calculationMaxThickness, buildupLimit(scenario, c));
+                    thickness = ThicknessSolver.minimumThickness(t -> flux(scenario, c, t, true)/unshielded,
+                            target/unshielded, high, TOLERANCE);
+                    buildupUsed = true;
+                }catch(IllegalArgumentException | IllegalStateException e){
+                    warnings.add("G-P buildup was requested for minimum-thickness design, but the buildup-aware "
+                            + "solution was unavailable: " + e.getMessage()
+                            + " The result below uses narrow-beam uncollided flux only.");
+                }
+            }
+            if(!buildupUsed){
+                try{
+                    thickness = ThicknessSolver.minimumThickness(t -> flux(scenario, c, t, false)/unshielded,
+                            target/unshielded, scenario.calculationMaxThickness, TOLERANCE);
+                }catch(IllegalArgumentException e){
+                    reasons.add(e.getMessage());
+                    return new Candidate(key, mat, FAILED, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                            false, Double.NaN, Double.NaN, reasons, warnings);
+                }
+            }
+        }
+
+        double uncollided = flux(scenario, c, thickness, false);
+        double buildupFlux = buildupUsed ? flux(scenario, c, thickness, true) : Double.NaN;
+        double mass = mat.density*thickness;
+        double cost = MaterialCostLibrary.relativeCostPerArea(mass, scenario.relativeCost(c));
+
+        if(!Double.isNaN(scenario.maxThickness) && thickness > scenario.maxThickness){
+            reasons.add("Required thickness " + format(thickness) + " cm exceeds the maximum allowed thickness "
+                    + format(scenario.maxThickness) + " cm.");
+        }
+        if(!Double.isNaN(scenario.maxMassPerArea) && mass > scenario.maxMassPerArea){
+            reasons.add("Mass per area " + format(mass) + " g/cm^2 exceeds the maximum allowed mass per area "
+                    + format(scenario.maxMassPerArea) + " g/cm^2.");
+        }
+        if(!Double.isNaN(scenario.maxCostPerArea) && cost > scenario.maxCostPerArea){
+            reasons.add("Relative cost index per area " + format(cost) + " exceeds the maximum allowed value "
+                    + format(scenario.maxCostPerArea) + ".");
+        }
+        return new Candidate(key, mat, reasons.isEmpty() ? ELIGIBLE : REJECTED, thickness,
+                buildupUsed ? buildupFlux : uncollided, uncollided, buildupFlux, buildupUsed, mass, cost, reasons, warnings);
+    }
+
+    //Detector flux through the fixed layers plus t cm of candidate c, optionally buildup-corrected per line
+    static double flux(Scenario scenario, int c, double t, boolean applyBuildup){
+        PhotonSource source = scenario.source;
+        double[] mu = scenario.candidateMu(c);
+        double[] fixed = scenario.fixedDepth();
+        double total = 0;
+        for(int k = 0; k < mu.length; k++){
+            double mfp = mu[k]*t;
+            double line = source.photonRate(k)*Math.exp(-fixed[k] - mfp);
+            if(applyBuildup){
+                line *= Buildup.factor(scenario.candidate(c), source.energy(k), mfp);
+            }
+            total += line;
+        }
+        return ShieldingCalculator.computeFlux(1, scenario.evaluationRadius, total);
+    }
+
+    //Largest thickness (cm) that keeps every line of candidate c within the G-P range
+    private static double buildupLimit(Scenario scenario, int c){
+        double[] mu = scenario.candidateMu(c);
+        double limit = Double.POSITIVE_INFINITY;
+        for(double m: mu){
+            //The small factor keeps roundoff from producing 40.0000000001 mfp at the bound
+            limit = Math.min(limit, Buildup.MAX_MFP/m*(1.0 - 1.0e-12));
+        }
+        return limit;
+    }
+
+    //Normalizes, scores and sorts the eligible candidates
+    private static Candidate[] rank(Scenario scenario, Candidate[] candidates){
+        List<Candidate> eligible = new ArrayList<>();
+        for(Candidate candidate: candidates){
+            if(candidate.status.equals(ELIGIBLE)) eligible.add(candidate);
+        }
+        if(eligible.isEmpty()){
+            return new Candidate[0];
+        }
+        double minT = Double.POSITIVE_INFINITY, maxT = Double.NEGATIVE_INFINITY;
+        double minM = Double.POSITIVE_INFINITY, maxM = Double.NEGATIVE_INFINITY;
+        double minC = Double.POSITIVE_INFINITY, maxC = Double.NEGATIVE_INFINITY;
+        for(Candidate candidate: eligible){
+            minT = Math.min(minT, candidate.thickness);
+            maxT = Math.max(maxT, candidate.thickness);
+            minM = Math.min(minM, candidate.massPerArea);
+            maxM = Math.max(maxM, candidate.massPerArea);
+            minC = Math.min(minC, candidate.costPerArea);
+            maxC = Math.max(maxC, candidate.costPerArea);
+        }
+        String mode = scenario.optimizationMode;
+        for(Candidate candidate: eligible){
+            candidate.normalizedThickness = normalize(candidate.thickness, minT, maxT);
+            candidate.normalizedMass = normalize(candidate.massPerArea, minM, maxM);
+            candidate.normalizedCost = normalize(candidate.costPerArea, minC, maxC);
+            switch(mode){
+                case Scenario.MINIMUM_THICKNESS: candidate.score = candidate.thickness; break;
+                case Scenario.MINIMUM_MASS: candidate.score = candidate.massPerArea; break;
+                case Scenario.MINIMUM_COST: candidate.score = candidate.costPerArea; break;
+                default:
+                    candidate.score = (scenario.thicknessWeight*candidate.normalizedThickness
+                            + scenario.massWeight*candidate.normalizedMass
+                            + scenario.costWeight*candidate.normalizedCost)
+                            /(scenario.thicknessWeight + scenario.massWeight + scenario.costWeight);
+            }
+        }
+        Comparator<Candidate> thickness = Comparator.comparingDouble(x -> x.thickness);
+        Comparator<Candidate> mass = Comparator.comparingDouble(x -> x.massPerArea);
+        Comparator<Candidate> cost = Comparator.comparingDouble(x -> x.costPerArea);
+        Comparator<Candidate> key = Comparator.comparing(x -> x.key);
+        Comparator<Candidate> order;
+        switch(mode){
+            case Scenario.MINIMUM_THICKNESS: order = thickness.thenComparing(mass).thenComparing(cost); break;
+            case Scenario.MINIMUM_MASS: order = mass.thenComparing(thickness).thenComparing(cost); break;
+            case Scenario.MINIMUM_COST: order = cost.thenComparing(mass).thenComparing(thickness); break;
+            default:
+                order = Comparator.<Candidate>comparingDouble(x -> x.score)
+                        .thenComparing(thickness).thenComparing(mass).thenComparing(cost);
+        }
+        eligible.sort(order.thenComparing(key));
+        return eligible.toArray(new Candidate[0]);
+    }
+
+    //Min-max normalization: best = 0, worst = 1, and 0 when every value is equal
+    private static double normalize(double value, double min, double max){
+        return max == min ? 0.0 : (value - min)/(max - min);
+    }
+
+    private static String selectionReason(Scenario scenario, Candidate best, int eligibleCount){
+        String name = best.material.name;
+        String tail = " among " + eligibleCount + " eligible candidates.";
+        switch(scenario.optimizationMode){
+            case Scenario.MINIMUM_THICKNESS:
+                return name + " was selected because it has the lowest required thickness ("
+                        + format(best.thickness) + " cm)" + tail;
+            case Scenario.MINIMUM_MASS:
+                return name + " was selected because it has the lowest mass per area ("
+                        + format(best.massPerArea) + " g/cm^2)" + tail;
+            case Scenario.MINIMUM_COST:
+                return name + " was selected because it has the lowest relative cost index per area ("
+                        + format(best.costPerArea) + ")" + tail;
+            default:
+                return name + " was selected because it has the lowest balanced normalized score ("
+                        + format(best.score) + ")" + tail;
+        }
+    }
+
+    private static String format(double value){
+        return String.format("%.6g", value);
+    }
+}
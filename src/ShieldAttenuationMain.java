@@ -10,11 +10,50 @@
  * @version 1.01
  */
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
 public class ShieldAttenuationMain {
 
 	public static void main(String [] args) {
 
+		//Optional hot-path metrics: -Dshield.metrics=true [-Dshield.metrics.dump=seconds]
+		EngineMetrics.configureFromSystemProperties();
+
+		//Non-interactive batch mode: --batch [--format csv|jsonl] [--input file|-] [--output file|-]
+		if(args.length > 0 && args[0].equals("--batch")){
+			System.exit(runBatch(args));
+		}
+
+		//Local HTTP service: --serve [--host address] [--port n]
+		if(args.length > 0 && args[0].equals("--serve")){
+			int code = serve(args);
+			if(code != 0) System.exit(code);
+			return;
+		}
+
+		//Scenario mode: --scenario file.json|directory [--threads n]
+		if(args.length > 0 && args[0].equals("--scenario")){
+			System.exit(runScenarios(args));
+		}
+
+		//Writes the built-in attenuation tables as a cross-section database: --export-xsdb file
+		if(args.length > 0 && args[0].equals("--export-xsdb")){
+			if(args.length != 2){
+				System.err.println("Usage: --export-xsdb file");
+				System.exit(2);
+			}
+			try{
+				CrossSectionDatabase.exportBuiltIn(java.nio.file.Paths.get(args[1]));
+				System.err.println("Wrote " + MaterialLibrary.size() + " materials to " + args[1]);
+			}catch(IOException e){
+				System.err.println("Export failed: " + e.getMessage());
+				System.exit(2);
+			}
+			return;
+		}
+
 		//Photon energy in MeV (Cs-137 reference)
 		double E = .6617;
 
@@ -54,4 +93,147 @@ public class ShieldAttenuationMain {
 		}
 		scan.close();
 	}
+
+	//Runs batch mode and returns the process exit code
+	static int runBatch(String [] args) {
+		String input = "-";
+		String output = "-";
+		String format = null;
+		for(int i = 1; i < args.length; i++){
+			if(i + 1 >= args.length){
+				System.err.println("Missing value for " + args[i]);
+				return 2;
+			}
+			switch(args[i]){
+				case "--input": input = args[++i]; break;
+				case "--output": output = args[++i]; break;
+				case "--format": format = args[++i]; break;
+				default:
+					System.err.println("Unknown option " + args[i]);
+					return 2;
+			}
+		}
+		BatchProcessor.Format fmt;
+		if(format == null){
+			fmt = BatchProcessor.formatFor(input.equals("-") ? output : input);
+		}else if(format.equalsIgnoreCase("csv")){
+			fmt = BatchProcessor.Format.CSV;
+		}else if(format.equalsIgnoreCase("jsonl")){
+			fmt = BatchProcessor.Format.JSONL;
+		}else{
+			System.err.println("Unknown format " + format + " (expected csv or jsonl)");
+			return 2;
+		}
+		try(BufferedReader in = new BufferedReader(input.equals("-")
+				? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+				: new FileReader(input, StandardCharsets.UTF_8), 1 << 16);
+			BufferedWriter out = new BufferedWriter(output.equals("-")
+				? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+				: new FileWriter(output, StandardCharsets.UTF_8), 1 << 16)){
+			BatchProcessor.Summary summary = BatchProcessor.run(in, out, System.err, fmt);
+			System.err.println("Processed " + summary.processed() + " configurations, " + summary.failed() + " failed.");
+			return summary.failed() == 0 ? 0 : 1;
+		}catch(IOException e){
+			System.err.println("Batch I/O error: " + e.getMessage());
+			return 2;
+		}
+	}
+
+	//Runs one scenario file or every scenario in a directory and returns the process exit code
+	static int runScenarios(String [] args) {
+		if(args.length < 2){
+			System.err.println("Usage: --scenario file.json|directory [--threads n]");
+			return 2;
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		if(args.length == 4 && args[2].equals("--threads")){
+			try{
+				threads = Integer.parseInt(args[3]);
+			}catch(NumberFormatException e){
+				threads = 0;
+			}
+			if(threads < 1){
+				System.err.println("Thread count must be a whole number of at least 1.");
+				System.err.println("Usage: --scenario file.json|directory [--threads n]");
+				return 2;
+			}
+		}else if(args.length != 2){
+			System.err.println("Usage: --scenario file.json|directory [--threads n]");
+			return 2;
+		}
+		java.nio.file.Path path = java.nio.file.Paths.get(args[1]);
+		List<ScenarioRunner.Outcome> outcomes;
+		try{
+			if(java.nio.file.Files.isDirectory(path)){
+				outcomes = ScenarioRunner.runDirectory(path, threads);
+			}else{
+				ExecutorService pool = Executors.newSingleThreadExecutor();
+				try{
+					outcomes = ScenarioRunner.runAll(Collections.singletonList(path), pool);
+				}finally{
+					pool.shutdown();
+				}
+			}
+		}catch(IOException e){
+			System.err.println("Scenario I/O error: " + e.getMessage());
+			return 2;
+		}
+		int failed = 0;
+		for(ScenarioRunner.Outcome outcome: outcomes){
+			if(outcome.error() != null){
+				failed++;
+				System.err.println(outcome.error().getMessage());
+				continue;
+			}
+			ScenarioRunner.Result result = outcome.result();
+			ScenarioRunner.Candidate best = result.best();
+			if(best == null){
+				System.out.printf("%s: no eligible candidate%n", result.scenario().id());
+			}else{
+				System.out.printf("%s: %s %.6g cm, %.6g g/cm^2 (%.3f ms)%n", result.scenario().id(), best.key(),
+						best.thickness(), best.massPerArea(), result.elapsedNanos()/1e6);
+				System.out.println("  " + result.selectionReason());
+			}
+		}
+		return failed == 0 ? 0 : 1;
+	}
+
+	//Starts the calculation service; it keeps running until the process is stopped
+	static int serve(String [] args) {
+		String host = "127.0.0.1";
+		int port = CalculationServer.DEFAULT_PORT;
+		for(int i = 1; i < args.length; i += 2){
+			if(i + 1 >= args.length){
+				System.err.println("Missing value for " + args[i]);
+				return 2;
+			}
+			if(args[i].equals("--host")){
+				host = args[i + 1];
+			}else if(args[i].equals("--port")){
+				try{
+					port = Integer.parseInt(args[i + 1]);
+				}catch(NumberFormatException e){
+					port = -1;
+				}
+				if(port < 0 || port > 65535){
+					System.err.println("Port must be a whole number from 0 to 65535, got " + args[i + 1]);
+					System.err.println("Usage: --serve [--host address] [--port n]");
+					return 2;
+				}
+			}else{
+				System.err.println("Unknown option " + args[i]);
+				return 2;
+			}
+		}
+		try{
+			CalculationServer server = new CalculationServer(host, port);
+			server.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+			System.err.println("Calculation service listening on http://" + host + ":" + server.port() + "/");
+			return 0;
+		}catch(IOException e){
+			System.err.println("Could not start service: " + e.getMessage());
+			return 2;
+		}
+	}
 }
@@ -0,0 +1,208 @@
+import java.util.*;
+
+/**
+ * ShieldStack.java
+ *
+ * Mutable layer stack bound to a line source, for optimizers and interactive sessions that edit one
+ * layer at a time.
+ *
+ * For every layer the stack keeps its optical thickness tau_ik = mu_i(E_k) t_i at each source line,
+ * and for every line the total tau_k = sum_i tau_ik (so ln T_k = -tau_k). Changing one layer's
+ * thickness or material, or inserting or removing a layer, adjusts tau_k by the difference of that
+ * layer's contribution: O(lines) work that never touches the other layers. mu comes from the
+ * source's shared per-material cache.
+ *
+ * Incremental sums drift by rounding, so the totals are rebuilt from the per-layer values every
+ * RESUM_INTERVAL edits. Uncollided narrow-beam only, as in SourceCalculator.computeResponse without
+ * buildup. Not thread-safe.
+ */
+public final class ShieldStack{
+
+    //Edits between exact re-summations of the line totals
+    static final int RESUM_INTERVAL = 1024;
+
+    private final PhotonSource source;
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private final double[] total;
+    private int edits;
+
+    //One layer and its per-line optical thickness
+    private static final class Slot{
+        final Material material;
+        final double thickness;
+        final double[] depth;
+
+        Slot(Material material, double thickness, double[] depth){
+            this.material = material;
+            this.thickness = thickness;
+            this.depth = depth;
+        }
+    }
+
+    //Empty stack for the lines of a source
+    public ShieldStack(PhotonSource source){
+        this.source = source;
+        this.total = new double[source.lineCount()];
+    }
+
+    //Stack initialized with layers ordered from the source outward
+    public ShieldStack(PhotonSource source, List<Layer> layers){
+        this(source);
+        for(Layer layer: layers){
+            add(layer.material, layer.thickness);
+        }
+    }
+
+    public PhotonSource source(){
+        return source;
+    }
+
+    public int size(){
+        return slots.size();
+    }
+
+    public Material material(int i){
+        return slots.get(i).material;
+    }
+
+    public double thickness(int i){
+        return slots.get(i).thickness;
+    }
+
+    //Appends a layer on the detector side
+    public void add(Material mat, double thickness){
+        insert(size(), mat, thickness);
+    }
+
+    //Inserts a layer at position i (0 = next to the source)
+    public void insert(int i, Material mat, double thickness){
+        if(i < 0 || i > size()){
+            throw new IndexOutOfBoundsException("Layer index " + i + " out of range for " + size() + " layers.");
+        }
+        Slot slot = slot(mat, thickness);
+        slots.add(i, slot);
+        apply(null, slot.depth);
+    }
+
+    //Removes the layer at position i
+    public void remove(int i){
+        checkIndex(i);
+        apply(slots.remove(i).depth, null);
+    }
+
+    public void setThickness(int i, double thickness){
+        checkIndex(i);
+        replace(i, slot(slots.get(i).material, thickness));
+    }
+
+    public void setMaterial(int i, Material mat){
+        checkIndex(i);
+        replace(i, slot(mat, slots.get(i).thickness));
+    }
+
+    //Optical thickness of the whole stack at line k
+    public double opticalThickness(int line){
+        return total[line];
+    }
+
+    //Optical thickness of layer i at line k
+    public double opticalThickness(int i, int line){
+        return slots.get(i).depth[line];
+    }
+
+    //ln(transmission) at line k
+    public double logTransmission(int line){
+        return -total[line];
+    }
+
+    public double transmission(int line){
+        return Math.exp(-total[line]);
+    }
+
+    //Photon rate leaving the stack (photons/s)
+    public double transmittedRate(){
+        double rate = 0;
+        for(int k = 0; k < total.length; k++){
+            rate += source.photonRate(k)*Math.exp(-total[k]);
+        }
+        return rate;
+    }
+
+    //Total uncollided flux (photons/cm^2/s) at a detector distance (cm)
+    public double flux(double distance){
+        if(distance <= 0){
+            throw new IllegalArgumentException("Detector distance must be greater than zero.");
+        }
+        return ShieldingCalculator.computeFlux(1, distance, transmittedRate());
+    }
+
+    //Per-line response at a detector distance (cm), as SourceCalculator.computeResponse without buildup
+    public SourceResult response(double distance){
+        if(distance <= 0){
+            throw new IllegalArgumentException("Detector distance must be greater than zero.");
+        }
+        int n = total.length;
+        double[] photonRate = new double[n];
+        double[] transmission = new double[n];
+        double[] uncollided = new double[n];
+        for(int k = 0; k < n; k++){
+            photonRate[k] = source.photonRate(k);
+            transmission[k] = Math.exp(-total[k]);
+            uncollided[k] = ShieldingCalculator.computeFlux(transmission[k], distance, photonRate[k]);
+        }
+        return new SourceResult(source, distance, photonRate, transmission, uncollided, null, null);
+    }
+
+    //Copy of the current stack as layers
+    public ArrayList<Layer> layers(){
+        ArrayList<Layer> layers = new ArrayList<>(size());
+        for(Slot slot: slots){
+            layers.add(new Layer(slot.material, slot.thickness));
+        }
+        return layers;
+    }
+
+    private void replace(int i, Slot slot){
+        apply(slots.set(i, slot).depth, slot.depth);
+    }
+
+    //Swaps one layer's contribution in the line totals
+    private void apply(double[] removed, double[] added){
+        if(++edits >= RESUM_INTERVAL || slots.isEmpty()){
+            resum();
+            return;
+        }
+        for(int k = 0; k < total.length; k++){
+            total[k] += (added == null ? 0 : added[k]) - (removed == null ? 0 : removed[k]);
+        }
+    }
+
+    //Rebuilds the line totals exactly from the per-layer values
+    private void resum(){
+        edits = 0;
+        Arrays.fill(total, 0);
+        for(Slot slot: slots){
+            for(int k = 0; k < total.length; k++){
+                total[k] += slot.depth[k];
+            }
+        }
+    }
+
+    private Slot slot(Material mat, double thickness){
+        if(!(thickness >= 0) || Double.isInfinite(thickness)){
+            throw new IllegalArgumentException("Thickness cannot be negative.");
+        }
+        double[] mu = source.mu(mat);
+        double[] depth = new double[mu.length];
+        for(int k = 0; k < mu.length; k++){
+            depth[k] = mu[k]*thickness;
+        }
+        return new Slot(mat, thickness, depth);
+    }
+
+    private void checkIndex(int i){
+        if(i < 0 || i >= size()){
+            throw new IndexOutOfBoundsException("Layer index " + i + " out of range for " + size() + " layers.");
+        }
+    }
+}
@@ -5,11 +5,26 @@ import java.util.*;
  *
  * Contains methods to calculate photon attenuation and flux through a stack of shielding layers.
  * Uses Beer-Lambert law for attenuation and the inverse-square law for geometric spreading.
+ *
+ * The batch methods take stacks in structure-of-arrays form (energies, material ids from
+ * MaterialLibrary, thicknesses) and write into caller-supplied arrays without per-element allocation.
  */
 public class ShieldingCalculator{
 
     //Computes total transmission of photons through multiple layers of shielding.
     public static double computeTransmission(double energy, ArrayList<Layer> layers){
+        if(!EngineMetrics.enabled){
+            return transmission(energy, layers);
+        }
+        long start = System.nanoTime();
+        try{
+            return transmission(energy, layers);
+        }finally{
+            EngineMetrics.recordTransmission(layers.size(), System.nanoTime() - start);
+        }
+    }
+
+    private static double transmission(double energy, ArrayList<Layer> layers){
         //Calculations: multiply transmission through each layer (Beer-Lambert)
 
         //Start with 100% transmission
@@ -28,10 +43,127 @@ public class ShieldingCalculator{
         }
         return transmission;
     }
+    //Computes transmission through multiple layers, optionally corrected by the G-P exposure buildup factor.
+    //With buildup, layers are taken in order from the source outward (Broder's multilayer approximation).
+    public static double computeTransmission(double energy, ArrayList<Layer> layers, boolean applyBuildup){
+        double transmission = computeTransmission(energy, layers);
+        if(!applyBuildup){
+            return transmission;
+        }
+        return transmission*Buildup.multilayerFactor(energy, layers);
+    }
     //Computes photon flux at a given distance from a point source after attenuation.
     //Uses inverse-square law.
     public static double computeFlux(double transmission, double distance,double sourceStrength){
         return sourceStrength * transmission / (4* Math.PI * distance*distance);
     }
 
-}
\ No newline at end of file
+    //Computes transmission through one stack at many energies.
+    //materialIds are MaterialLibrary menu indices, thicknesses are in cm; out[e] receives the transmission at energies[e].
+    public static void computeTransmissions(double[] energies, int[] materialIds, double[] thicknesses, double[] out){
+        if(materialIds.length != thicknesses.length){
+            throw new IllegalArgumentException("materialIds and thicknesses must have the same length.");
+        }
+        if(out.length < energies.length){
+            throw new IllegalArgumentException("Output array is shorter than the energy array.");
+        }
+        int n = energies.length;
+        //Accumulate optical thickness sum(mu*t) in place, then convert with one exp per energy
+        Arrays.fill(out, 0, n, 0.0);
+        for(int l = 0; l < materialIds.length; l++){
+            addOpticalThickness(energies, table(materialIds[l]), thicknesses[l], out);
+        }
+        for(int e = 0; e < n; e++){
+            out[e] = Math.exp(-out[e]);
+        }
+    }
+
+    //Computes transmission through many stacks at many energies.
+    //Stack s uses layers layerOffsets[s] to layerOffsets[s+1]-1 of materialIds/thicknesses,
+    //so layerOffsets has one more entry than there are stacks.
+    //out[s*energies.length + e] receives the transmission of stack s at energies[e].
+    //mu(E) is evaluated once per distinct material, not once per layer.
+    public static void computeTransmissions(double[] energies, int[] layerOffsets, int[] materialIds, double[] thicknesses, double[] out){
+        if(materialIds.length != thicknesses.length){
+            throw new IllegalArgumentException("materialIds and thicknesses must have the same length.");
+        }
+        int nStacks = layerOffsets.length - 1;
+        int n = energies.length;
+        if(nStacks < 0 || layerOffsets[0] != 0 || layerOffsets[nStacks] != materialIds.length){
+            throw new IllegalArgumentException("layerOffsets must start at 0 and end at the number of layers.");
+        }
+        if(out.length < nStacks*n){
+            throw new IllegalArgumentException("Output array is shorter than stacks x energies.");
+        }
+        //mu grid per material, filled only for materials that appear in the stacks
+        double[][] muByMaterial = new double[MaterialLibrary.size() + 1][];
+        for(int id: materialIds){
+            if(muByMaterial[checkId(id)] == null){
+                muByMaterial[id] = new double[n];
+                computeMu(energies, id, muByMaterial[id]);
+            }
+        }
+        for(int s = 0; s < nStacks; s++){
+            int base = s*n;
+            Arrays.fill(out, base, base + n, 0.0);
+            for(int l = layerOffsets[s]; l < layerOffsets[s + 1]; l++){
+                double[] mu = muByMaterial[materialIds[l]];
+                double t = thicknesses[l];
+                for(int e = 0; e < n; e++){
+                    out[base + e] += mu[e]*t;
+                }
+            }
+            for(int e = 0; e < n; e++){
+                out[base + e] = Math.exp(-out[base + e]);
+            }
+        }
+    }
+
+    //Fills out[e] with the linear attenuation coefficient (1/cm) of a library material at energies[e].
+    //Bracket indices are reused between consecutive energies, so ascending energies avoid repeated searches.
+    public static void computeMu(double[] energies, int materialId, double[] out){
+        AttenuationTable table = table(materialId);
+        int segment = -1;
+        for(int e = 0; e < energies.length; e++){
+            double E = energies[e];
+            segment = table.segmentOf(E, segment);
+            if(segment == -1){
+                throw table.outOfBounds(E);
+            }
+            double mu = table.mu(E, segment);
+            if(mu < 0){
+                throw new IllegalStateException("Negative mu encountered.");
+            }
+            out[e] = mu;
+        }
+    }
+
+    //Adds mu(E)*thickness for one layer to the optical thickness accumulator
+    private static void addOpticalThickness(double[] energies, AttenuationTable table, double thickness, double[] tau){
+        int segment = -1;
+        for(int e = 0; e < energies.length; e++){
+            double E = energies[e];
+            segment = table.segmentOf(E, segment);
+            if(segment == -1){
+                throw table.outOfBounds(E);
+            }
+            double mu = table.mu(E, segment);
+            if(mu < 0){
+                throw new IllegalStateException("Negative mu encountered.");
+            }
+            tau[e] += mu*thickness;
+        }
+    }
+
+    //Resolves a MaterialLibrary menu index to its compiled attenuation table
+    private static AttenuationTable table(int materialId){
+        return AttenuationTable.of(MaterialLibrary.getMaterial(checkId(materialId)));
+    }
+
+    private static int checkId(int materialId){
+        if(MaterialLibrary.getMaterial(materialId) == null){
+            throw new IllegalArgumentException("Unknown material id " + materialId);
+        }
+        return materialId;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.*;
+
+/**
+ * SourceCalculator.java
+ *
+ * Calculates line-by-line photon flux from a discrete-line source through a stack of layers.
+ *
+ * Each line is attenuated independently (Beer-Lambert) and spread by the inverse-square law,
+ * then the lines are summed. mu for each line comes from the source's per-material cache,
+ * so repeated evaluations through the same materials never interpolate again.
+ */
+public class SourceCalculator{
+
+    //Computes narrow-beam per-line and total flux at a detector distance (cm)
+    public static SourceResult computeResponse(PhotonSource source, ArrayList<Layer> layers, double distance){
+        return computeResponse(source, layers, distance, false);
+    }
+
+    //Computes per-line and total flux, optionally with G-P buildup (layers ordered from the source outward)
+    public static SourceResult computeResponse(PhotonSource source, ArrayList<Layer> layers, double distance, boolean applyBuildup){
+        if(distance <= 0){
+            throw new IllegalArgumentException("Detector distance must be greater than zero.");
+        }
+        int n = source.lineCount();
+        double[] photonRate = new double[n];
+        double[] transmission = new double[n];
+        double[] uncollided = new double[n];
+        double[] buildupFactor = applyBuildup ? new double[n] : null;
+        double[] buildupFlux = applyBuildup ? new double[n] : null;
+
+        opticalThickness(source, layers, transmission);
+        for(int k = 0; k < n; k++){
+            transmission[k] = Math.exp(-transmission[k]);
+            photonRate[k] = source.photonRate(k);
+            uncollided[k] = ShieldingCalculator.computeFlux(transmission[k], distance, photonRate[k]);
+            if(applyBuildup){
+                buildupFactor[k] = Buildup.multilayerFactor(source.energy(k), layers);
+                buildupFlux[k] = uncollided[k]*buildupFactor[k];
+            }
+        }
+        return new SourceResult(source, distance, photonRate, transmission, uncollided, buildupFactor, buildupFlux);
+    }
+
+    //Computes only the total narrow-beam flux at a detector distance (cm), without allocating a result
+    public static double computeTotalFlux(PhotonSource source, ArrayList<Layer> layers, double distance){
+        int n = source.lineCount();
+        double total = 0;
+        for(int k = 0; k < n; k++){
+            double depth = 0;
+            for(int i = 0; i < layers.size(); i++){
+                Layer layer = layers.get(i);
+                depth += source.mu(layer.material)[k]*layer.thickness;
+            }
+            total += source.photonRate(k)*Math.exp(-depth);
+        }
+        return ShieldingCalculator.computeFlux(1, distance, total);
+    }
+
+    //Fills depth[k] with the optical thickness sum(mu_i(E_k) * t_i) of the stack at each line
+    static void opticalThickness(PhotonSource source, ArrayList<Layer> layers, double[] depth){
+        Arrays.fill(depth, 0, source.lineCount(), 0.0);
+        for(int i = 0; i < layers.size(); i++){
+            Layer layer = layers.get(i);
+            double[] mu = source.mu(layer.material);
+            for(int k = 0; k < mu.length; k++){
+                depth[k] += mu[k]*layer.thickness;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * SourceLibrary.java
+ *
+ * Provides predefined isotope photon sources.
+ *
+ * Lines match source_library.py: selected major photon lines useful for shielding
+ * examples, not complete decay spectra. Energies in MeV, intensities in photons per decay.
+ * U-238 (DU) lines match UraniumSourceModel and assume secular equilibrium up to Pa-234m.
+ * Half-lives are given for time-dependent activity (DecayChain).
+ */
+public class SourceLibrary{
+
+    //Isotope keys in the order of source_library.py, followed by DU
+    private static final String[] KEYS = {"cs137", "co60", "am241", "ba133", "na22", "mn54",
+            "co57", "zn65", "eu152", "ir192", "u238"};
+
+    //Returns the available isotope keys
+    public static String[] getAvailableIsotopes(){
+        return KEYS.clone();
+    }
+
+    //Returns the half-life of the isotope key in seconds (U-238 as in UraniumSourceModel)
+    public static double getHalfLife(String key){
+        double day = 24*3600;
+        double year = 365.25*day;
+        switch(key){
+            case "cs137": return 30.08*year;
+            case "co60": return 5.2714*year;
+            case "am241": return 432.6*year;
+            case "ba133": return 10.551*year;
+            case "na22": return 2.6018*year;
+            case "mn54": return 312.20*day;
+            case "co57": return 271.74*day;
+            case "zn65": return 243.93*day;
+            case "eu152": return 13.517*year;
+            case "ir192": return 73.829*day;
+            case "u238": return 4.468e9*year;
+            default:
+                throw new IllegalArgumentException("Unsupported isotope: " + key);
+        }
+    }
+
+    //Returns a source for the isotope key with the given activity in Bq
+    public static PhotonSource createIsotopeSource(String key, double activityBq){
+        switch(key){
+            case "cs137": return new PhotonSource("Cs-137", activityBq,
+                    new double[]{0.661657},
+                    new double[]{0.851});
+            case "co60": return new PhotonSource("Co-60", activityBq,
+                    new double[]{1.173228, 1.332492},
+                    new double[]{0.9985, 0.9998});
+            case "am241": return new PhotonSource("Am-241", activityBq,
+                    new double[]{0.059541},
+                    new double[]{0.359});
+            case "ba133": return new PhotonSource("Ba-133", activityBq,
+                    new double[]{0.0809979, 0.1606120, 0.2232368, 0.2763989, 0.3028508, 0.3560129, 0.3838485},
+                    new double[]{0.329, 0.00638, 0.00453, 0.0716, 0.1834, 0.6205, 0.0894});
+            case "na22": return new PhotonSource("Na-22", activityBq,
+                    new double[]{0.5110, 1.274537},
+                    new double[]{1.7991, 0.99940});
+            case "mn54": return new PhotonSource("Mn-54", activityBq,
+                    new double[]{0.834848},
+                    new double[]{0.999760});
+            case "co57": return new PhotonSource("Co-57", activityBq,
+                    new double[]{0.12206065, 0.13647356},
+                    new double[]{0.8560, 0.1068});
+            case "zn65": return new PhotonSource("Zn-65", activityBq,
+                    new double[]{0.511, 1.115539},
+                    new double[]{0.0290, 0.5012});
+            case "eu152": return new PhotonSource("Eu-152", activityBq,
+                    new double[]{0.1217817, 0.2446974, 0.4439606, 0.867380, 0.964057, 1.085837, 1.112076, 1.212948, 1.408013},
+                    new double[]{0.2853, 0.0755, 0.02827, 0.0423, 0.1451, 0.1011, 0.1367, 0.01415, 0.2087});
+            case "ir192": return new PhotonSource("Ir-192", activityBq,
+                    new double[]{0.65122, 0.66831, 0.75749, 0.29595650, 0.30845507, 0.31650618, 0.46806885, 0.5885810, 0.60441105, 0.61246215},
+                    new double[]{0.0262, 0.0444, 0.01021, 0.2871, 0.2970, 0.8286, 0.4784, 0.04522, 0.08216, 0.0534});
+            case "u238": return UraniumSourceModel.createU238Source(activityBq);
+            default:
+                throw new IllegalArgumentException("Unsupported isotope: " + key);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * SourceResult.java
+ *
+ * Stores the result of a discrete-line source calculation through a layer stack.
+ *
+ * Per-line arrays are indexed like the source lines. Flux values are in photons/cm^2/s.
+ * Buildup-corrected values are null when buildup was not requested.
+ */
+public final class SourceResult{
+    //Source that was evaluated
+    final PhotonSource source;
+    //Detector distance in cm
+    final double distance;
+    //Per-line photon emission rate (photons/s)
+    final double[] photonRate;
+    //Per-line narrow-beam transmission and uncollided flux
+    final double[] transmission;
+    final double[] uncollidedFlux;
+    //Per-line buildup factor and buildup-corrected flux (null without buildup)
+    final double[] buildupFactor;
+    final double[] buildupFlux;
+
+    SourceResult(PhotonSource source, double distance, double[] photonRate, double[] transmission,
+                 double[] uncollidedFlux, double[] buildupFactor, double[] buildupFlux){
+        this.source = source;
+        this.distance = distance;
+        this.photonRate = photonRate;
+        this.transmission = transmission;
+        this.uncollidedFlux = uncollidedFlux;
+        this.buildupFactor = buildupFactor;
+        this.buildupFlux = buildupFlux;
+    }
+
+    public int lineCount(){
+        return photonRate.length;
+    }
+
+    public double energy(int line){
+        return source.energy(line);
+    }
+
+    public double photonRate(int line){
+        return photonRate[line];
+    }
+
+    public double transmission(int line){
+        return transmission[line];
+    }
+
+    public double uncollidedFlux(int line){
+        return uncollidedFlux[line];
+    }
+
+    public boolean hasBuildup(){
+        return buildupFlux != null;
+    }
+
+    public double buildupFactor(int line){
+        return buildupFactor[line];
+    }
+
+    public double buildupFlux(int line){
+        return buildupFlux[line];
+    }
+
+    //Sum of uncollided flux over all lines
+    public double totalUncollidedFlux(){
+        return sum(uncollidedFlux);
+    }
+
+    //Sum of buildup-corrected flux over all lines, or NaN without buildup
+    public double totalBuildupFlux(){
+        return buildupFlux == null ? Double.NaN : sum(buildupFlux);
+    }
+
+    //Photon-weighted shield transmission over all lines
+    public double totalTransmission(){
+        double rate = sum(photonRate);
+        return rate == 0 ? 0 : totalUncollidedFlux()/ShieldingCalculator.computeFlux(1, distance, rate);
+    }
+
+    private static double sum(double[] values){
+        double total = 0;
+        for(double v: values){
+            total += v;
+        }
+        return total;
+    }
+}
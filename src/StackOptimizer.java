@@ -0,0 +1,511 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * StackOptimizer.java
+ *
+ * Searches multi-layer shield designs of up to maxLayers library materials with continuous thicknesses,
+ * minimizing total thickness, mass per area or relative cost per area under a narrow-beam flux target.
+ *
+ * Narrow-beam transmission sum_k w_k exp(-sum_i mu_ik t_i) does not depend on layer order, so a stack is
+ * identified by its set of materials. Sets are enumerated as a tree (children add a material with a higher
+ * candidate index) and every node solves its own continuous design:
+ * - With objective weights c_i (1, density, or density * cost index) and x_i = c_i t_i, the design is
+ *   x = V f with f on the simplex; V(f) is the smallest budget meeting the target (Newton on ln T, as in
+ *   ThicknessSolver) and f is refined by golden-section exchanges between pairs of layers
+ * - Layers that end with no share of the budget are dropped from the reported design
+ *
+ * Pruning: a design meeting the target must meet it line by line, so for every line k
+ *   objective >= (ln(w_k) - ln(T)) / max_i(mu_ik / c_i)
+ * over every material still reachable in the subtree. A subtree is skipped when this bound is not below the
+ * best design found so far, or when a thickness, mass or cost limit cannot reach the required optical depth.
+ * The bound tightens with depth because fewer materials remain reachable.
+ *
+ * Constraints are checked on each set's optimal design, as in constraint_optimizer.py.
+ * Subtrees are explored in parallel on a ForkJoinPool; the incumbent is shared.
+ */
+public class StackOptimizer{
+
+    //Relative tolerance on the objective for inner solves
+    private static final double TOLERANCE = 1e-10;
+    //Golden-section steps per pair exchange and maximum exchange sweeps
+    private static final int GOLDEN_STEPS = 48;
+    private static final int MAX_SWEEPS = 60;
+    private static final double INV_PHI = (Math.sqrt(5) - 1)/2;
+    //Budget share below which a layer is dropped from the design
+    private static final double MIN_SHARE = 1e-9;
+
+    //Design problem: source, geometry, target, candidates, objective and constraints
+    public static final class Problem{
+        final PhotonSource source;
+        final double distance;
+        final double targetFlux;
+        final Material[] candidates;
+        final int maxLayers;
+        final String objective;
+        //Constraints (NaN = inactive)
+        final double maxThickness;
+        final double maxMassPerArea;
+        final double maxCostPerArea;
+
+        //objective is Scenario.MINIMUM_THICKNESS, MINIMUM_MASS or MINIMUM_COST
+        public Problem(PhotonSource source, double distance, double targetFlux, Material[] candidates,
+                       int maxLayers, String objective){
+            this(source, distance, targetFlux, candidates, maxLayers, objective, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        private Problem(PhotonSource source, double distance, double targetFlux, Material[] candidates, int maxLayers,
+                        String objective, double maxThickness, double maxMassPerArea, double maxCostPerArea){
+            if(!(distance > 0)){
+                throw new IllegalArgumentException("Detector distance must be greater than zero.");
+            }
+            if(!(targetFlux > 0)){
+                throw new IllegalArgumentException("Target flux must be greater than zero.");
+            }
+            if(candidates.length == 0){
+                throw new IllegalArgumentException("At least one candidate material is required.");
+            }
+            if(maxLayers < 1){
+                throw new IllegalArgumentException("At least one layer must be allowed.");
+            }
+            if(!(Scenario.MINIMUM_THICKNESS.equals(objective) || Scenario.MINIMUM_MASS.equals(objective)
+                    || Scenario.MINIMUM_COST.equals(objective))){
+                throw new IllegalArgumentException("Unsupported objective: " + objective);
+            }
+            for(double limit: new double[]{maxThickness, maxMassPerArea, maxCostPerArea}){
+                if(!Double.isNaN(limit) && !(limit > 0)){
+                    throw new IllegalArgumentException("Constraint limits must be greater than zero.");
+                }
+            }
+            boolean needsCost = Scenario.MINIMUM_COST.equals(objective) || !Double.isNaN(maxCostPerArea);
+            for(Material mat: candidates){
+                if(needsCost && Double.isNaN(costIndex(mat))){
+                    throw new IllegalArgumentException("No relative cost data found for " + mat.name + ".");
+                }
+            }
+            if(new HashSet<>(Arrays.asList(candidates)).size() != candidates.length){
+                throw new IllegalArgumentException("Candidate materials must be unique.");
+            }
+            this.source = source;
+            this.distance = distance;
+            this.targetFlux = targetFlux;
+            this.candidates = candidates.clone();
+            this.maxLayers = maxLayers;
+            this.objective = objective;
+            this.maxThickness = maxThickness;
+            this.maxMassPerArea = maxMassPerArea;
+            this.maxCostPerArea = maxCostPerArea;
+        }
+
+        //Returns the same problem with engineering limits (NaN = no limit)
+        public Problem withConstraints(double maxThickness, double maxMassPerArea, double maxCostPerArea){
+            return new Problem(source, distance, targetFlux, candidates, maxLayers, objective,
+                    maxThickness, maxMassPerArea, maxCostPerArea);
+        }
+    }
+
+    //One shield design: layers in candidate order with their thicknesses (cm)
+    public static final class Design{
+        final Material[] materials;
+        final double[] thicknesses;
+        final double totalThickness;
+        final double massPerArea;
+        final double costPerArea;
+        final double flux;
+        final double objective;
+
+        Design(Material[] materials, double[] thicknesses, double totalThickness, double massPerArea,
+               double costPerArea, double flux, double objective){
+            this.materials = materials;
+            this.thicknesses = thicknesses;
+            this.totalThickness = totalThickness;
+            this.massPerArea = massPerArea;
+            this.costPerArea = costPerArea;
+            this.flux = flux;
+            this.objective = objective;
+        }
+
+        public int layerCount(){
+            return materials.length;
+        }
+
+        public Material material(int i){
+            return materials[i];
+        }
+
+        public double thickness(int i){
+            return thicknesses[i];
+        }
+
+        public double totalThickness(){
+            return totalThickness;
+        }
+
+        public double massPerArea(){
+            return massPerArea;
+        }
+
+        //Relative cost index per area, NaN if a layer has no cost data
+        public double costPerArea(){
+            return costPerArea;
+        }
+
+        //Narrow-beam detector flux of the design (photons/cm^2/s)
+        public double flux(){
+            return flux;
+        }
+
+        public double objective(){
+            return objective;
+        }
+
+        //Layer stack ordered as reported
+        public ArrayList<Layer> layers(){
+            ArrayList<Layer> layers = new ArrayList<>(materials.length);
+            for(int i = 0; i < materials.length; i++){
+                layers.add(new Layer(materials[i], thicknesses[i]));
+            }
+            return layers;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < materials.length; i++){
+                if(i > 0) sb.append(" + ");
+                sb.append(String.format("%.6g cm %s", thicknesses[i], materials[i].name));
+            }
+            return sb.toString();
+        }
+    }
+
+    //Search outcome with counters
+    public static final class Result{
+        final Design best;
+        final long nodes;
+        final long pruned;
+        final long solved;
+        final long elapsedNanos;
+
+        Result(Design best, long nodes, long pruned, long solved, long elapsedNanos){
+            this.best = best;
+            this.nodes = nodes;
+            this.pruned = pruned;
+            this.solved = solved;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        //Best design, or null if no stack meets the target and constraints
+        public Design best(){
+            return best;
+        }
+
+        //Material sets visited, subtrees cut by bounds, and continuous designs solved
+        public long nodes(){
+            return nodes;
+        }
+
+        public long pruned(){
+            return pruned;
+        }
+
+        public long solved(){
+            return solved;
+        }
+
+        public long elapsedNanos(){
+            return elapsedNanos;
+        }
+    }
+
+    public static Result optimize(Problem problem){
+        return optimize(problem, ForkJoinPool.commonPool());
+    }
+
+    public static Result optimize(Problem problem, ForkJoinPool pool){
+        long start = System.nanoTime();
+        Search search = new Search(problem);
+        if(search.lnTarget >= 0){
+            //The unshielded flux already meets the target
+            Design none = new Design(new Material[0], new double[0], 0, 0, 0,
+                    ShieldingCalculator.computeFlux(1, problem.distance, problem.source.totalPhotonRate()), 0);
+            return new Result(none, 1, 0, 0, System.nanoTime() - start);
+        }
+        pool.invoke(new Node(search, new int[0]));
+        return new Result(search.best.get(), search.nodes.sum(), search.pruned.sum(), search.solved.sum(),
+                System.nanoTime() - start);
+    }
+
+    private static double costIndex(Material mat){
+        return MaterialCostLibrary.getRelativeCostIndex(MaterialLibrary.getKey(mat));
+    }
+
+    //Shared, read-only problem data plus the incumbent and counters
+    private static final class Search{
+        final Problem problem;
+        final int lines;
+        //Normalized line weights ln(w_k) and the target as ln(transmission)
+        final double[] lnW;
+        final double lnTarget;
+        //Per candidate: mu_ik, objective weight c_i, density and cost index
+        final double[][] mu;
+        final double[] weight;
+        final double[] density;
+        final double[] cost;
+        final AtomicReference<Design> best = new AtomicReference<>();
+        final LongAdder nodes = new LongAdder();
+        final LongAdder pruned = new LongAdder();
+        final LongAdder solved = new LongAdder();
+
+        Search(Problem problem){
+            this.problem = problem;
+            PhotonSource source = problem.source;
+            lines = source.lineCount();
+            double total = source.totalPhotonRate();
+            if(!(total > 0)){
+                throw new IllegalArgumentException("Source photon rate must be greater than zero.");
+            }
+            lnW = new double[lines];
+            for(int k = 0; k < lines; k++){
+                lnW[k] = Math.log(source.photonRate(k)/total);
+            }
+            lnTarget = Math.log(problem.targetFlux/ShieldingCalculator.computeFlux(1, problem.distance, total));
+            int n = problem.candidates.length;
+            mu = new double[n][];
+            weight = new double[n];
+            density = new double[n];
+            cost = new double[n];
+            for(int i = 0; i < n; i++){
+                Material mat = problem.candidates[i];
+                mu[i] = source.mu(mat);
+                density[i] = mat.density;
+                cost[i] = costIndex(mat);
+                switch(problem.objective){
+                    case Scenario.MINIMUM_THICKNESS: weight[i] = 1; break;
+                    case Scenario.MINIMUM_MASS: weight[i] = density[i]; break;
+                    default: weight[i] = density[i]*cost[i];
+                }
+            }
+        }
+
+        double incumbent(){
+            Design design = best.get();
+            return design == null ? Double.POSITIVE_INFINITY : design.objective;
+        }
+
+        void offer(Design design){
+            Design current;
+            do{
+                current = best.get();
+                if(current != null && !isBetter(design, current)) return;
+            }while(!best.compareAndSet(current, design));
+        }
+
+        //Lower objective wins; ties go to fewer layers, then thinner stacks
+        private static boolean isBetter(Design a, Design b){
+            if(a.objective != b.objective) return a.objective < b.objective;
+            if(a.materials.length != b.materials.length) return a.materials.length < b.materials.length;
+            return a.totalThickness < b.totalThickness;
+        }
+
+        //True if no design in the subtree rooted at this set can beat the incumbent or meet the limits
+        boolean prune(int[] set){
+            int from = set.length == 0 ? 0 : set[set.length - 1] + 1;
+            double bound = 0;
+            for(int k = 0; k < lines; k++){
+                double required = lnW[k] - lnTarget;
+                if(required <= 0) continue;
+                double perObjective = 0;
+                double perThickness = 0;
+                double perMass = 0;
+                double perCost = 0;
+                for(int r = 0; r < set.length + problem.candidates.length - from; r++){
+                    int i = r < set.length ? set[r] : from + r - set.length;
+                    double m = mu[i][k];
+                    perObjective = Math.max(perObjective, m/weight[i]);
+                    perThickness = Math.max(perThickness, m);
+                    perMass = Math.max(perMass, m/density[i]);
+                    if(!Double.isNaN(cost[i])) perCost = Math.max(perCost, m/(density[i]*cost[i]));
+                }
+                if(perThickness*problem.maxThickness < required || perMass*problem.maxMassPerArea < required
+                        || perCost*problem.maxCostPerArea < required){
+                    return true;
+                }
+                bound = Math.max(bound, required/perObjective);
+            }
+            return bound*(1 - 1e-12) >= incumbent();
+        }
+
+        //Solves the continuous design of a material set and offers it if it meets the constraints
+        void solve(int[] set){
+            solved.increment();
+            int n = set.length;
+            double[] f = new double[n];
+            Arrays.fill(f, 1.0/n);
+            double[] work = new double[lines];
+            double v = budget(set, f, work);
+            if(n > 1){
+                double[] trial = new double[n];
+                for(int sweep = 0; sweep < MAX_SWEEPS; sweep++){
+                    double before = v;
+                    for(int a = 0; a < n; a++){
+                        for(int b = a + 1; b < n; b++){
+                            v = exchange(set, f, a, b, v, trial, work);
+                        }
+                    }
+                    if(!(before - v > TOLERANCE*v)) break;
+                }
+            }
+            if(!Double.isFinite(v)) return;
+            Design design = design(set, f, v);
+            if(design != null) offer(design);
+        }
+
+        //Golden-section search over the split of f[a] + f[b] between layers a and b
+        private double exchange(int[] set, double[] f, int a, int b, double v, double[] trial, double[] work){
+            double share = f[a] + f[b];
+            if(share <= 0) return v;
+            System.arraycopy(f, 0, trial, 0, f.length);
+            double lo = 0;
+            double hi = 1;
+            double x1 = hi - INV_PHI*(hi - lo);
+            double x2 = lo + INV_PHI*(hi - lo);
+            double v1 = split(set, trial, a, b, share, x1, work);
+            double v2 = split(set, trial, a, b, share, x2, work);
+            for(int step = 0; step < GOLDEN_STEPS; step++){
+                if(v1 <= v2){
+                    hi = x2;
+                    x2 = x1;
+                    v2 = v1;
+                    x1 = hi - INV_PHI*(hi - lo);
+                    v1 = split(set, trial, a, b, share, x1, work);
+                }else{
+                    lo = x1;
+                    x1 = x2;
+                    v1 = v2;
+                    x2 = lo + INV_PHI*(hi - lo);
+                    v2 = split(set, trial, a, b, share, x2, work);
+                }
+            }
+            //Also try the end points, where one of the two layers disappears
+            double best = v;
+            double bestX = f[a]/share;
+            double[] xs = {x1, x2, 0, 1};
+            for(double x: xs){
+                double value = split(set, trial, a, b, share, x, work);
+                if(value < best){
+                    best = value;
+                    bestX = x;
+                }
+            }
+            f[a] = bestX*share;
+            f[b] = share - f[a];
+            return best;
+        }
+
+        private double split(int[] set, double[] trial, int a, int b, double share, double x, double[] work){
+            trial[a] = x*share;
+            trial[b] = share - trial[a];
+            return budget(set, trial, work);
+        }
+
+        //Smallest objective budget V such that x = V f meets the target (infinite if unreachable)
+        private double budget(int[] set, double[] f, double[] attenuation){
+            double hi = 0;
+            for(int k = 0; k < lines; k++){
+                double m = 0;
+                for(int r = 0; r < set.length; r++){
+                    int i = set[r];
+                    m += f[r]*mu[i][k]/weight[i];
+                }
+                if(!(m > 0)) return Double.POSITIVE_INFINITY;
+                attenuation[k] = m;
+                //Each line alone at or below target/lines is enough
+                hi = Math.max(hi, (lnW[k] - lnTarget + Math.log(lines))/m);
+            }
+            double v = ThicknessSolver.solveLines(lnW, attenuation, lnTarget, hi, TOLERANCE*hi);
+            return Double.isNaN(v) ? Double.POSITIVE_INFINITY : v;
+        }
+
+        //Builds the reported design, dropping layers with no share of the budget. Returns null if a limit is exceeded.
+        private Design design(int[] set, double[] f, double v){
+            int kept = 0;
+            for(double share: f){
+                if(share > MIN_SHARE) kept++;
+            }
+            Material[] materials = new Material[kept];
+            double[] thicknesses = new double[kept];
+            double total = 0;
+            double mass = 0;
+            double costPerArea = 0;
+            double[] depth = new double[lines];
+            int j = 0;
+            for(int r = 0; r < set.length; r++){
+                if(!(f[r] > MIN_SHARE)) continue;
+                int i = set[r];
+                double t = v*f[r]/weight[i];
+                materials[j] = problem.candidates[i];
+                thicknesses[j] = t;
+                j++;
+                total += t;
+                mass += density[i]*t;
+                costPerArea += density[i]*cost[i]*t;
+                for(int k = 0; k < lines; k++){
+                    depth[k] += mu[i][k]*t;
+                }
+            }
+            double rate = 0;
+            for(int k = 0; k < lines; k++){
+                rate += problem.source.photonRate(k)*Math.exp(-depth[k]);
+            }
+            double flux = ShieldingCalculator.computeFlux(1, problem.distance, rate);
+            double objective = Scenario.MINIMUM_THICKNESS.equals(problem.objective) ? total
+                    : Scenario.MINIMUM_MASS.equals(problem.objective) ? mass : costPerArea;
+            if(total > problem.maxThickness || mass > problem.maxMassPerArea || costPerArea > problem.maxCostPerArea){
+                return null;
+            }
+            return new Design(materials, thicknesses, total, mass, costPerArea, flux, objective);
+        }
+    }
+
+    //One node of the material-set tree: solves its own set, then forks the children that survive the bound
+    private static final class Node extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final Search search;
+        private final int[] set;
+
+        Node(Search search, int[] set){
+            this.search = search;
+            this.set = set;
+        }
+
+        @Override
+        protected void compute(){
+            search.nodes.increment();
+            if(set.length > 0){
+                //The incumbent may have improved since this node was forked
+                if(search.prune(set)){
+                    search.pruned.increment();
+                    return;
+                }
+                search.solve(set);
+            }
+            if(set.length == search.problem.maxLayers){
+                return;
+            }
+            int from = set.length == 0 ? 0 : set[set.length - 1] + 1;
+            List<Node> children = new ArrayList<>();
+            for(int i = from; i < search.problem.candidates.length; i++){
+                int[] child = Arrays.copyOf(set, set.length + 1);
+                child[set.length] = i;
+                if(search.prune(child)){
+                    search.pruned.increment();
+                }else{
+                    children.add(new Node(search, child));
+                }
+            }
+            invokeAll(children);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * ThicknessSolver.java
+ *
+ * Solves for the minimum shielding thickness that meets a transmission target.
+ *
+ * Flux and reduction-factor targets are converted to a target transmission first,
+ * since flux = S * T / (4 pi d^2) and reduction factor = 1 / T.
+ *
+ * Methods:
+ * - Single layer, one energy: closed form t = -ln(T)/mu
+ * - Stack with one free layer, one energy: closed form after subtracting the fixed layers
+ * - Stack with one free layer, weighted line spectrum: safeguarded Newton on ln(T(t)),
+ *   which is convex and decreasing in t, so the iteration stays inside a shrinking bracket
+ * - Any monotone transmission function (e.g. buildup-corrected): Brent's method
+ *
+ * Spectrum and batch solves compute mu once per line and reuse it for every iteration and target.
+ */
+public class ThicknessSolver{
+
+    //Default thickness tolerance in cm
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    private static final int MAX_ITERATIONS = 200;
+
+    //Converts a target flux (photons/cm^2/s) at a distance (cm) into a target transmission
+    public static double transmissionForFlux(double targetFlux, double distance, double sourceStrength){
+        if(targetFlux <= 0){
+            throw new IllegalArgumentException("Target flux must be greater than zero.");
+        }
+        if(distance <= 0){
+            throw new IllegalArgumentException("Detector distance must be greater than zero.");
+        }
+        if(sourceStrength <= 0){
+            throw new IllegalArgumentException("Source strength must be greater than zero.");
+        }
+        return targetFlux*4*Math.PI*distance*distance/sourceStrength;
+    }
+
+    //Converts a reduction factor (unshielded / shielded flux) into a target transmission
+    public static double transmissionForReductionFactor(double reductionFactor){
+        if(reductionFactor < 1){
+            throw new IllegalArgumentException("Reduction factor must be greater than or equal to 1.");
+        }
+        return 1/reductionFactor;
+    }
+
+    //Minimum thickness (cm) of a single material that gives the target transmission at energy E
+    public static double minimumThickness(double E, Material mat, double targetTransmission){
+        checkTarget(targetTransmission);
+        if(targetTransmission >= 1){
+            return 0;
+        }
+        double mu = Physics.getMu(E, mat);
+        if(mu <= 0){
+            throw new IllegalStateException("Non-positive mu encountered for " + mat.name);
+        }
+        return -Math.log(targetTransmission)/mu;
+    }
+
+    //Minimum thickness (cm) of layers[freeLayer] so the whole stack gives the target transmission at energy E.
+    //The free layer's current thickness is ignored; the other layers are held fixed.
+    public static double minimumThickness(double E, ArrayList<Layer> layers, int freeLayer, double targetTransmission){
+        checkTarget(targetTransmission);
+        double fixedDepth = 0;
+        for(int i = 0; i < layers.size(); i++){
+            if(i == freeLayer) continue;
+            Layer layer = layers.get(i);
+            fixedDepth += Physics.getMu(E, layer.material)*layer.thickness;
+        }
+        double mu = Physics.getMu(E, layers.get(freeLayer).material);
+        if(mu <= 0){
+            throw new IllegalStateException("Non-positive mu encountered for " + layers.get(freeLayer).material.name);
+        }
+        return Math.max(0, (-Math.log(targetTransmission) - fixedDepth)/mu);
+    }
+
+    //Minimum thickness (cm) of layers[freeLayer] for a line spectrum.
+    //Transmission is the weighted mean over lines: sum(w_k T_k) / sum(w_k).
+    //Throws if the target cannot be met within maxThickness.
+    public static double minimumThickness(double[] energies, double[] weights, ArrayList<Layer> layers, int freeLayer,
+                                          double targetTransmission, double maxThickness, double tolerance){
+        checkTarget(targetTransmission);
+        int n = energies.length;
+        double[] lnA = new double[n];
+        double[] mu = new double[n];
+        prepareLines(energies, weights, layers, freeLayer, lnA, mu);
+        double t = solveLines(lnA, mu, Math.log(targetTransmission), maxThickness, tolerance);
+        if(Double.isNaN(t)){
+            throw new IllegalArgumentException("Target transmission " + targetTransmission
+                    + " cannot be reached within " + maxThickness + " cm.");
+        }
+        return t;
+    }
+
+    //Batch mode: solves many transmission targets for the same stack and spectrum.
+    //mu is computed once per line and reused for every target.
+    //out[i] receives the thickness for targets[i], or NaN if that target cannot be reached within maxThickness.
+    public static void minimumThicknesses(double[] energies, double[] weights, ArrayList<Layer> layers, int freeLayer,
+                                          double[] targets, double maxThickness, double tolerance, double[] out){
+        if(out.length < targets.length){
+            throw new IllegalArgumentException("Output array is shorter than the target array.");
+        }
+        int n = energies.length;
+        double[] lnA = new double[n];
+        double[] mu = new double[n];
+        prepareLines(energies, weights, layers, freeLayer, lnA, mu);
+        for(int i = 0; i < targets.length; i++){
+            checkTarget(targets[i]);
+            out[i] = solveLines(lnA, mu, Math.log(targets[i]), maxThickness, tolerance);
+        }
+    }
+
+    //Batch mode for single layers: out[i] = minimum thickness of a library material at energies[i] for targets[i].
+    //Energies sorted ascending reuse the bracket search between elements.
+    public static void minimumThicknesses(double[] energies, int materialId, double[] targets, double[] out){
+        if(targets.length != energies.length || out.length < energies.length){
+            throw new IllegalArgumentException("energies, targets and out must have matching lengths.");
+        }
+        ShieldingCalculator.computeMu(energies, materialId, out);
+        for(int i = 0; i < energies.length; i++){
+            checkTarget(targets[i]);
+            out[i] = targets[i] >= 1 ? 0 : -Math.log(targets[i])/out[i];
+        }
+    }
+
+    //Minimum thickness for any transmission function that decreases monotonically with thickness,
+    //such as a buildup-corrected response. Uses Brent's method on T(t) - target over [0, maxThickness].
+    public static double minimumThickness(DoubleUnaryOperator transmission, double targetTransmission,
+                                          double maxThickness, double tolerance){
+        checkTarget(targetTransmission);
+        double a = 0;
+        double fa = transmission.applyAsDouble(a) - targetTransmission;
+        if(fa <= 0){
+            return 0;
+        }
+        double b = maxThickness;
+        double fb = transmission.applyAsDouble(b) - targetTransmission;
+        if(fb > 0){
+            throw new IllegalArgumentException("Target transmission " + targetTransmission
+                    + " cannot be reached within " + maxThickness + " cm.");
+        }
+        return brent(transmission, targetTransmission, a, fa, b, fb, tolerance);
+    }
+
+    //Fills lnA[k] = ln(w_k / sum(w)) - fixed optical depth at line k, and mu[k] = free-layer mu at line k
+    private static void prepareLines(double[] energies, double[] weights, ArrayList<Layer> layers, int freeLayer,
+                                     double[] lnA, double[] mu){
+        if(weights.length != energies.length){
+            throw new IllegalArgumentException("energies and weights must have the same length.");
+        }
+        double weightSum = 0;
+        for(double w: weights){
+            if(w < 0){
+                throw new IllegalArgumentException("Line weights cannot be negative.");
+            }
+            weightSum += w;
+        }
+        if(weightSum <= 0){
+            throw new IllegalArgumentException("At least one line weight must be positive.");
+        }
+        Material free = layers.get(freeLayer).material;
+        for(int k = 0; k < energies.length; k++){
+            double fixedDepth = 0;
+            for(int i = 0; i < layers.size(); i++){
+                if(i == freeLayer) continue;
+                Layer layer = layers.get(i);
+                fixedDepth += Physics.getMu(energies[k], layer.material)*layer.thickness;
+            }
+            lnA[k] = Math.log(weights[k]/weightSum) - fixedDepth;
+            mu[k] = Physics.getMu(energies[k], free);
+            if(mu[k] <= 0){
+                throw new IllegalStateException("Non-positive mu encountered for " + free.name);
+            }
+        }
+    }
+
+    //Solves ln(sum exp(lnA_k - mu_k t)) = lnTarget for t in [0, maxThickness].
+    //The left side is convex and decreasing, so Newton from the left converges monotonically;
+    //the bracket catches steps that leave it. Returns NaN if the target is not reachable.
+    static double solveLines(double[] lnA, double[] mu, double lnTarget, double maxThickness, double tolerance){
+        double lo = 0;
+        double hi = maxThickness;
+        if(lnTransmission(lnA, mu, lo) <= lnTarget){
+            return 0;
+        }
+        if(lnTransmission(lnA, mu, hi) > lnTarget){
+            return Double.NaN;
+        }
+        double t = lo;
+        for(int iter = 0; iter < MAX_ITERATIONS; iter++){
+            //g(t) and g'(t) evaluated with a max shift so deep shields do not underflow
+            double max = Double.NEGATIVE_INFINITY;
+            for(int k = 0; k < lnA.length; k++){
+                max = Math.max(max, lnA[k] - mu[k]*t);
+            }
+            double sum = 0;
+            double slope = 0;
+            for(int k = 0; k < lnA.length; k++){
+                double w = Math.exp(lnA[k] - mu[k]*t - max);
+                sum += w;
+                slope += w*mu[k];
+            }
+            double g = max + Math.log(sum) - lnTarget;
+            double dg = -slope/sum;
+            if(g > 0){
+                lo = t;
+            }else{
+                hi = t;
+            }
+            double next = t - g/dg;
+            if(!(next > lo && next < hi)){
+                next = 0.5*(lo + hi);
+            }
+            if(Math.abs(next - t) <= tolerance || hi - lo <= tolerance){
+                return next;
+            }
+            t = next;
+        }
+        return t;
+    }
+
+    //ln of the weighted transmission sum(exp(lnA_k - mu_k t))
+    private static double lnTransmission(double[] lnA, double[] mu, double t){
+        double max = Double.NEGATIVE_INFINITY;
+        for(int k = 0; k < lnA.length; k++){
+            max = Math.max(max, lnA[k] - mu[k]*t);
+        }
+        double sum = 0;
+        for(int k = 0; k < lnA.length; k++){
+            sum += Math.exp(lnA[k] - mu[k]*t - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    //Brent's root finder on f(t) = T(t) - target, with f(a) > 0 >= f(b)
+    private static double brent(DoubleUnaryOperator transmission, double target,
+                                double a, double fa, double b, double fb, double tolerance){
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        for(int iter = 0; iter < MAX_ITERATIONS; iter++){
+            if((fb > 0) == (fc > 0)){
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if(Math.abs(fc) < Math.abs(fb)){
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = 2*Math.ulp(b) + 0.5*tolerance;
+            double m = 0.5*(c - b);
+            if(Math.abs(m) <= tol || fb == 0){
+                return b;
+            }
+            if(Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)){
+                //Inverse quadratic interpolation, or secant when only two points are distinct
+                double s = fb/fa;
+                double p;
+                double q;
+                if(a == c){
+                    p = 2*m*s;
+                    q = 1 - s;
+                }else{
+                    double r = fb/fc;
+                    q = fa/fc;
+                    p = s*(2*m*q*(q - r) - (b - a)*(r - 1));
+                    q = (q - 1)*(r - 1)*(s - 1);
+                }
+                if(p > 0){
+                    q = -q;
+                }else{
+                    p = -p;
+                }
+                if(2*p < Math.min(3*m*q - Math.abs(tol*q), Math.abs(e*q))){
+                    e = d;
+                    d = p/q;
+                }else{
+                    d = m;
+                    e = m;
+                }
+            }else{
+                d = m;
+                e = m;
+            }
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : (m > 0 ? tol : -tol);
+            fb = transmission.applyAsDouble(b) - target;
+        }
+        return b;
+    }
+
+    private static void checkTarget(double targetTransmission){
+        if(!(targetTransmission > 0)){
+            throw new IllegalArgumentException("Target transmission must be greater than zero.");
+        }
+    }
+}
@@ -0,0 +1,374 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * TransmissionCache.java
+ *
+ * Bounded, thread-safe cache of narrow-beam stack transmissions keyed on canonical queries.
+ *
+ * Canonical key:
+ * - Energy quantized to ENERGY_QUANTUM MeV; the transmission is computed at the quantized energy,
+ *   so every query that maps to the same key gets exactly the same value
+ * - MaterialLibrary menu indices and exact thicknesses of the layers, in order, with zero-thickness
+ *   layers dropped (they do not change the transmission)
+ *
+ * Eviction is LRU within independently locked segments, so the total size never exceeds maxEntries
+ * and threads working on different keys rarely contend. Lookups reuse a per-thread probe key and do
+ * not allocate; only inserts copy the key.
+ *
+ * Underneath, a per-material mu(E) memo (direct-mapped, MU_SLOTS energies per material) lets new
+ * stacks reuse energies that were already interpolated for other stacks.
+ *
+ * Layers whose material is not a shared MaterialLibrary instance are computed directly and not cached.
+ */
+public final class TransmissionCache{
+
+    //Energy quantum in MeV (1 micro-eV)
+    public static final double ENERGY_QUANTUM = 1e-12;
+    //Slots in each material's mu memo (power of two)
+    private static final int MU_SLOTS = 4096;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final MuEntry[][] muMemo;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder muHits = new LongAdder();
+    private final LongAdder muMisses = new LongAdder();
+    private final ThreadLocal<Key> probe = ThreadLocal.withInitial(Key::new);
+
+    //Snapshot of cache statistics
+    public static final class Stats{
+        final long hits;
+        final long misses;
+        final long evictions;
+        final long size;
+        final long muHits;
+        final long muMisses;
+
+        Stats(long hits, long misses, long evictions, long size, long muHits, long muMisses){
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.muHits = muHits;
+            this.muMisses = muMisses;
+        }
+
+        public long hits(){
+            return hits;
+        }
+
+        public long misses(){
+            return misses;
+        }
+
+        public long evictions(){
+            return evictions;
+        }
+
+        public long size(){
+            return size;
+        }
+
+        public long muHits(){
+            return muHits;
+        }
+
+        public long muMisses(){
+            return muMisses;
+        }
+
+        //Fraction of transmission lookups served from the cache
+        public double hitRate(){
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits/total;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("hits=%d misses=%d evictions=%d size=%d hitRate=%.4f muHits=%d muMisses=%d",
+                    hits, misses, evictions, size, hitRate(), muHits, muMisses);
+        }
+    }
+
+    //Creates a cache holding at most maxEntries stack transmissions
+    public TransmissionCache(int maxEntries){
+        if(maxEntries < 1){
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        int segmentCount = Math.min(SEGMENTS, maxEntries);
+        segments = new Segment[segmentCount];
+        for(int i = 0; i < segmentCount; i++){
+            //Spread the capacity so the segments add up to exactly maxEntries
+            segments[i] = new Segment(maxEntries/segmentCount + (i < maxEntries%segmentCount ? 1 : 0));
+        }
+        muMemo = new MuEntry[MaterialLibrary.size() + 1][];
+    }
+
+    //Transmission through a stack of library materials (menu indices) and thicknesses (cm) at energy (MeV)
+    public double transmission(double energy, int[] materialIds, double[] thicknesses){
+        if(materialIds.length != thicknesses.length){
+            throw new IllegalArgumentException("materialIds and thicknesses must have the same length.");
+        }
+        Key key = probe.get();
+        key.reset(quantize(energy));
+        for(int i = 0; i < materialIds.length; i++){
+            checkId(materialIds[i]);
+            checkThickness(thicknesses[i]);
+            key.add(materialIds[i], thicknesses[i]);
+        }
+        return lookup(key);
+    }
+
+    //Transmission through a layer stack at energy (MeV)
+    public double transmission(double energy, List<Layer> layers){
+        Key key = probe.get();
+        key.reset(quantize(energy));
+        for(Layer layer: layers){
+            int id = idOf(layer.material);
+            if(id < 0){
+                //Not a shared library material: bypass the cache
+                misses.increment();
+                return ShieldingCalculator.computeTransmission(energy, new ArrayList<>(layers));
+            }
+            checkThickness(layer.thickness);
+            key.add(id, layer.thickness);
+        }
+        return lookup(key);
+    }
+
+    //Linear attenuation coefficient (1/cm) of a library material at the quantized energy, memoized per material
+    public double mu(int materialId, double energy){
+        checkId(materialId);
+        return mu(materialId, quantize(energy));
+    }
+
+    public Stats stats(){
+        long size = 0;
+        for(Segment segment: segments){
+            size += segment.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, muHits.sum(), muMisses.sum());
+    }
+
+    //Removes every cached transmission and mu value; statistics are kept
+    public void clear(){
+        for(Segment segment: segments){
+            segment.clear();
+        }
+        synchronized(muMemo){
+            Arrays.fill(muMemo, null);
+        }
+    }
+
+    private double lookup(Key key){
+        Segment segment = segments[(key.hash & 0x7fffffff)%segments.length];
+        double cached = segment.get(key);
+        if(!Double.isNaN(cached)){
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        double transmission = 1;
+        for(int i = 0; i < key.size; i++){
+            transmission *= Math.exp(-mu(key.ids[i], key.energy)*Double.longBitsToDouble(key.thicknesses[i]));
+        }
+        if(segment.put(key.copy(), transmission)){
+            evictions.increment();
+        }
+        return transmission;
+    }
+
+    private double mu(int id, long q){
+        MuEntry[] slots = muMemo[id];
+        if(slots == null){
+            synchronized(muMemo){
+                slots = muMemo[id];
+                if(slots == null){
+                    slots = new MuEntry[MU_SLOTS];
+                    muMemo[id] = slots;
+                }
+            }
+        }
+        int slot = (int) (mix(q) & (MU_SLOTS - 1));
+        //Entries are immutable, so a racy read sees either null or a complete entry
+        MuEntry entry = slots[slot];
+        if(entry != null && entry.energy == q){
+            muHits.increment();
+            return entry.mu;
+        }
+        muMisses.increment();
+        double mu = Physics.getMu(q*ENERGY_QUANTUM, MaterialLibrary.getMaterial(id));
+        if(mu < 0){
+            throw new IllegalStateException("Negative mu encountered.");
+        }
+        slots[slot] = new MuEntry(q, mu);
+        return mu;
+    }
+
+    private static long quantize(double energy){
+        if(!(energy > 0) || Double.isInfinite(energy)){
+            throw new IllegalArgumentException("Photon energy must be greater than zero.");
+        }
+        return Math.round(energy/ENERGY_QUANTUM);
+    }
+
+    private static int idOf(Material mat){
+        for(int i = 1; i <= MaterialLibrary.size(); i++){
+            if(MaterialLibrary.getMaterial(i) == mat) return i;
+        }
+        return -1;
+    }
+
+    private static void checkId(int id){
+        if(id < 1 || id > MaterialLibrary.size()){
+            throw new IllegalArgumentException("Invalid material id: " + id);
+        }
+    }
+
+    private static void checkThickness(double thickness){
+        if(!(thickness >= 0)){
+            throw new IllegalArgumentException("Thickness cannot be negative.");
+        }
+    }
+
+    private static long mix(long x){
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    //One memoized mu value
+    private static final class MuEntry{
+        final long energy;
+        final double mu;
+
+        MuEntry(long energy, double mu){
+            this.energy = energy;
+            this.mu = mu;
+        }
+    }
+
+    //Canonical query key. The per-thread probe instance is mutable; stored copies are never modified.
+    private static final class Key{
+        long energy;
+        int size;
+        int[] ids;
+        long[] thicknesses;
+        int hash;
+
+        Key(){
+            this(new int[8], new long[8]);
+        }
+
+        private Key(int[] ids, long[] thicknesses){
+            this.ids = ids;
+            this.thicknesses = thicknesses;
+        }
+
+        void reset(long energy){
+            this.energy = energy;
+            this.size = 0;
+            this.hash = Long.hashCode(mix(energy));
+        }
+
+        void add(int id, double thickness){
+            if(thickness == 0) return;
+            if(size == ids.length){
+                ids = Arrays.copyOf(ids, 2*size);
+                thicknesses = Arrays.copyOf(thicknesses, 2*size);
+            }
+            long bits = Double.doubleToLongBits(thickness);
+            ids[size] = id;
+            thicknesses[size] = bits;
+            size++;
+            hash = 31*(31*hash + id) + Long.hashCode(bits);
+        }
+
+        Key copy(){
+            Key key = new Key(Arrays.copyOf(ids, size), Arrays.copyOf(thicknesses, size));
+            key.energy = energy;
+            key.size = size;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            if(other.hash != hash || other.energy != energy || other.size != size) return false;
+            for(int i = 0; i < size; i++){
+                if(other.ids[i] != ids[i] || other.thicknesses[i] != thicknesses[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    //Access-ordered LRU map guarded by its own lock
+    private static final class Segment{
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final LinkedHashMap<Key, Double> map;
+
+        Segment(int capacity){
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        //Returns the cached value or NaN
+        double get(Key key){
+            lock.lock();
+            try{
+                Double value = map.get(key);
+                return value == null ? Double.NaN : value;
+            }finally{
+                lock.unlock();
+            }
+        }
+
+        //Inserts a value; returns true if the least recently used entry was evicted
+        boolean put(Key key, double value){
+            lock.lock();
+            try{
+                map.put(key, value);
+                if(map.size() > capacity){
+                    Iterator<Key> eldest = map.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    return true;
+                }
+                return false;
+            }finally{
+                lock.unlock();
+            }
+        }
+
+        int size(){
+            lock.lock();
+            try{
+                return map.size();
+            }finally{
+                lock.unlock();
+            }
+        }
+
+        void clear(){
+            lock.lock();
+            try{
+                map.clear();
+            }finally{
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,667 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * UncertaintyAnalysis.java
+ *
+ * Propagates input uncertainties to the uncollided detector flux of a slab stack by sampling.
+ *
+ * Uncertain inputs (each a Distribution given by its inverse CDF; unset inputs stay at nominal):
+ * - Source strength, as a factor on the source's photon rates
+ * - Thickness of each layer (cm)
+ * - Density of each layer, as a factor on the material density
+ * - Mass attenuation of each material, as a factor on its total and, for materials with component
+ *   data, as factors on its photoelectric, Compton and pair parts. A material used by several
+ *   layers shares one set of factors
+ *
+ * Sampled thicknesses and factors below zero are clamped to zero.
+ *
+ * Per sample: tau_k = sum_i t_i rho_i f sum_c f_c (mu/p)_ick and
+ * flux = s sum_k S_k exp(-tau_k) / (4 pi d^2), with the component values (mu/p)_ick taken once
+ * per layer and line before sampling starts.
+ *
+ * Samples are drawn by plain Monte Carlo or by Latin hypercube in blocks of LHS_BLOCK samples
+ * (every block is a complete Latin hypercube design over the uncertain inputs). Each worker
+ * thread has its own SplittableRandom stream, parameter and permutation buffers, and streaming
+ * statistics (Welford mean and variance, P-squared quantile markers), so no sample is stored
+ * and the sampling loop allocates nothing. Worker statistics are merged once all workers finish.
+ */
+public final class UncertaintyAnalysis{
+
+    //Sampling methods
+    public enum Sampling{ MONTE_CARLO, LATIN_HYPERCUBE }
+
+    //Samples per Latin hypercube block
+    static final int LHS_BLOCK = 4096;
+    //Quantiles tracked unless others are requested
+    public static final double[] DEFAULT_PROBABILITIES = {0.05, 0.5, 0.95};
+
+    //Photoelectric, Compton, pair
+    private static final int COMPONENTS = 3;
+    //Sampled factors per distinct material: the components, then the total
+    private static final int MATERIAL_FACTORS = COMPONENTS + 1;
+
+    //Distribution of one uncertain input, given by its inverse CDF on (0, 1)
+    public interface Distribution{
+        double quantile(double u);
+    }
+
+    public static Distribution fixed(double value){
+        return new Fixed(value);
+    }
+
+    public static Distribution uniform(double min, double max){
+        if(!(min <= max) || !Double.isFinite(min) || !Double.isFinite(max)){
+            throw new IllegalArgumentException("Uniform bounds must be finite with min <= max.");
+        }
+        double width = max - min;
+        return u -> min + u*width;
+    }
+
+    public static Distribution normal(double mean, double standardDeviation){
+        if(!(standardDeviation >= 0) || !Double.isFinite(mean) || Double.isInfinite(standardDeviation)){
+            throw new IllegalArgumentException("Normal mean must be finite and standard deviation non-negative.");
+        }
+        return u -> mean + standardDeviation*standardNormalQuantile(u);
+    }
+
+    //Log-normal with the given median and geometric standard deviation (>= 1)
+    public static Distribution logNormal(double median, double geometricStandardDeviation){
+        if(!(median > 0) || !(geometricStandardDeviation >= 1) || Double.isInfinite(median)
+                || Double.isInfinite(geometricStandardDeviation)){
+            throw new IllegalArgumentException("Log-normal median must be positive and geometric standard deviation at least 1.");
+        }
+        double sigma = Math.log(geometricStandardDeviation);
+        return u -> median*Math.exp(sigma*standardNormalQuantile(u));
+    }
+
+    public static Distribution triangular(double min, double mode, double max){
+        if(!(min <= mode && mode <= max) || !Double.isFinite(min) || !Double.isFinite(max) || min == max){
+            throw new IllegalArgumentException("Triangular bounds must be finite with min <= mode <= max and min < max.");
+        }
+        double width = max - min;
+        double split = (mode - min)/width;
+        return u -> u < split ? min + Math.sqrt(u*width*(mode - min)) : max - Math.sqrt((1 - u)*width*(max - mode));
+    }
+
+    //Point value; inputs with a fixed distribution are not sampled
+    private static final class Fixed implements Distribution{
+        final double value;
+
+        Fixed(double value){
+            if(!Double.isFinite(value)){
+                throw new IllegalArgumentException("Fixed value must be finite.");
+            }
+            this.value = value;
+        }
+
+        @Override
+        public double quantile(double u){
+            return value;
+        }
+    }
+
+    //Nominal design and the distributions of its uncertain inputs
+    public static final class Model{
+        final PhotonSource source;
+        final double distance;
+        final Layer[] layers;
+        final Distribution[] thickness;
+        final Distribution[] density;
+        Distribution sourceStrength = fixed(1);
+        //Component and total factors per distinct material, by identity
+        final IdentityHashMap<Material, Distribution[]> factors = new IdentityHashMap<>();
+
+        //Layers ordered from the source outward, detector at distance (cm) from the source
+        public Model(PhotonSource source, List<Layer> layers, double distance){
+            if(!(distance > 0) || Double.isInfinite(distance)){
+                throw new IllegalArgumentException("Detector distance must be greater than zero.");
+            }
+            this.source = source;
+            this.distance = distance;
+            this.layers = layers.toArray(new Layer[0]);
+            this.thickness = new Distribution[this.layers.length];
+            this.density = new Distribution[this.layers.length];
+            for(int i = 0; i < this.layers.length; i++){
+                if(!(this.layers[i].thickness >= 0)){
+                    throw new IllegalArgumentException("Thickness cannot be negative.");
+                }
+                thickness[i] = fixed(this.layers[i].thickness);
+                density[i] = fixed(1);
+            }
+        }
+
+        //Factor on every line's photon rate
+        public void setSourceStrength(Distribution factor){
+            sourceStrength = Objects.requireNonNull(factor);
+        }
+
+        //Thickness of layer i (cm)
+        public void setThickness(int i, Distribution thickness){
+            this.thickness[checkLayer(i)] = Objects.requireNonNull(thickness);
+        }
+
+        //Thickness of layer i uniform within +/- tolerance (cm) of nominal
+        public void setThicknessTolerance(int i, double tolerance){
+            if(!(tolerance >= 0)){
+                throw new IllegalArgumentException("Tolerance cannot be negative.");
+            }
+            double nominal = layers[checkLayer(i)].thickness;
+            setThickness(i, uniform(nominal - tolerance, nominal + tolerance));
+        }
+
+        //Factor on the density of layer i
+        public void setDensity(int i, Distribution factor){
+            density[checkLayer(i)] = Objects.requireNonNull(factor);
+        }
+
+        //Factors on the photoelectric, Compton and pair mass attenuation of a material with component data
+        public void setComponents(Material mat, Distribution photoelectric, Distribution compton, Distribution pair){
+            if(AttenuationTable.of(mat).componentCount() != COMPONENTS){
+                throw new IllegalArgumentException("Material " + mat.name + " has no photoelectric, Compton and pair data.");
+            }
+            Distribution[] f = factors(mat);
+            f[0] = Objects.requireNonNull(photoelectric);
+            f[1] = Objects.requireNonNull(compton);
+            f[2] = Objects.requireNonNull(pair);
+        }
+
+        //Factor on the whole mass attenuation coefficient of a material
+        public void setMassAttenuation(Material mat, Distribution factor){
+            factors(mat)[COMPONENTS] = Objects.requireNonNull(factor);
+        }
+
+        private Distribution[] factors(Material mat){
+            return factors.computeIfAbsent(mat, key -> {
+                Distribution[] f = new Distribution[MATERIAL_FACTORS];
+                Arrays.fill(f, fixed(1));
+                return f;
+            });
+        }
+
+        private int checkLayer(int i){
+            if(i < 0 || i >= layers.length){
+                throw new IndexOutOfBoundsException("Layer index " + i + " out of range for " + layers.length + " layers.");
+            }
+            return i;
+        }
+    }
+
+    //Streaming mean, variance, range and quantiles of one output
+    public static final class Statistics{
+        long count;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        final P2Quantile[] quantiles;
+
+        Statistics(double[] probabilities){
+            quantiles = new P2Quantile[probabilities.length];
+            for(int q = 0; q < probabilities.length; q++){
+                quantiles[q] = new P2Quantile(probabilities[q]);
+            }
+        }
+
+        void add(double x){
+            //Welford update
+            count++;
+            double delta = x - mean;
+            mean += delta/count;
+            m2 += delta*(x - mean);
+            if(x < min) min = x;
+            if(x > max) max = x;
+            for(P2Quantile quantile: quantiles){
+                quantile.add(x);
+            }
+        }
+
+        //Chan et al. pairwise combination of moments; quantile markers are count-weighted
+        void merge(Statistics other){
+            if(other.count == 0) return;
+            long n = count + other.count;
+            double delta = other.mean - mean;
+            for(int q = 0; q < quantiles.length; q++){
+                quantiles[q].merge(other.quantiles[q], count, other.count);
+            }
+            mean += delta*other.count/n;
+            m2 += other.m2 + delta*delta*((double) count*other.count/n);
+            count = n;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        public long count(){
+            return count;
+        }
+
+        public double mean(){
+            return count == 0 ? Double.NaN : mean;
+        }
+
+        //Sample variance (n - 1 denominator)
+        public double variance(){
+            return count < 2 ? Double.NaN : m2/(count - 1);
+        }
+
+        public double standardDeviation(){
+            return Math.sqrt(variance());
+        }
+
+        public double min(){
+            return min;
+        }
+
+        public double max(){
+            return max;
+        }
+
+        //Estimated quantile for one of the tracked probabilities
+        public double quantile(double probability){
+            for(P2Quantile quantile: quantiles){
+                if(quantile.p == probability) return quantile.value();
+            }
+            throw new IllegalArgumentException("Quantile " + probability + " was not tracked.");
+        }
+    }
+
+    //Jain and Chlamtac P-squared estimator: five markers, O(1) memory and time per observation
+    static final class P2Quantile{
+        final double p;
+        private final double[] height = new double[5];
+        private final double[] position = new double[5];
+        private final double[] desired = new double[5];
+        private final double[] increment;
+        private long count;
+
+        P2Quantile(double p){
+            if(!(p > 0 && p < 1)){
+                throw new IllegalArgumentException("Quantile probability must be between 0 and 1.");
+            }
+            this.p = p;
+            this.increment = new double[]{0, p/2, p, (1 + p)/2, 1};
+            double[] start = {1, 1 + 2*p, 1 + 4*p, 3 + 2*p, 5};
+            System.arraycopy(start, 0, desired, 0, 5);
+            for(int j = 0; j < 5; j++){
+                position[j] = j + 1;
+            }
+        }
+
+        void add(double x){
+            if(count < 5){
+                //Keep the first five observations sorted
+                int j = (int) count++;
+                while(j > 0 && height[j - 1] > x){
+                    height[j] = height[j - 1];
+                    j--;
+                }
+                height[j] = x;
+                return;
+            }
+            count++;
+            int cell;
+            if(x < height[0]){
+                height[0] = x;
+                cell = 0;
+            }else if(x >= height[4]){
+                if(x > height[4]) height[4] = x;
+                cell = 3;
+            }else{
+                cell = 0;
+                while(x >= height[cell + 1]) cell++;
+            }
+            for(int j = cell + 1; j < 5; j++){
+                position[j]++;
+            }
+            for(int j = 0; j < 5; j++){
+                desired[j] += increment[j];
+            }
+            for(int j = 1; j <= 3; j++){
+                double d = desired[j] - position[j];
+                if((d >= 1 && position[j + 1] - position[j] > 1) || (d <= -1 && position[j - 1] - position[j] < -1)){
+                    int step = d > 0 ? 1 : -1;
+                    double candidate = parabolic(j, step);
+                    if(!(height[j - 1] < candidate && candidate < height[j + 1])){
+                        candidate = height[j] + step*(height[j + step] - height[j])/(position[j + step] - position[j]);
+                    }
+                    height[j] = candidate;
+                    position[j] += step;
+                }
+            }
+        }
+
+        private double parabolic(int j, int step){
+            double left = position[j] - position[j - 1];
+            double right = position[j + 1] - position[j];
+            return height[j] + step/(position[j + 1] - position[j - 1])
+                    *((left + step)*(height[j + 1] - height[j])/right + (right - step)*(height[j] - height[j - 1])/left);
+        }
+
+        //Combines estimators that saw disjoint samples of the same distribution
+        void merge(P2Quantile other, long weight, long otherWeight){
+            if(otherWeight == 0) return;
+            if(weight == 0){
+                System.arraycopy(other.height, 0, height, 0, 5);
+                System.arraycopy(other.position, 0, position, 0, 5);
+                System.arraycopy(other.desired, 0, desired, 0, 5);
+                count = other.count;
+                return;
+            }
+            //Both streams need the full marker set; otherwise keep the larger one
+            if(count < 5 || other.count < 5){
+                if(other.count > count){
+                    merge(other, 0, otherWeight);
+                }
+                return;
+            }
+            //Marker heights are averaged by sample count; positions add up over the combined stream
+            double total = weight + otherWeight;
+            for(int j = 1; j <= 3; j++){
+                height[j] = (height[j]*weight + other.height[j]*otherWeight)/total;
+            }
+            height[0] = Math.min(height[0], other.height[0]);
+            height[4] = Math.max(height[4], other.height[4]);
+            for(int j = 0; j < 5; j++){
+                position[j] += other.position[j];
+                desired[j] += other.desired[j];
+            }
+            count += other.count;
+        }
+
+        double value(){
+            if(count == 0) return Double.NaN;
+            if(count < 5){
+                //Exact order statistic of the few stored observations
+                int n = (int) count;
+                return height[Math.min(n - 1, (int) Math.floor(p*n))];
+            }
+            return height[2];
+        }
+    }
+
+    //Merged statistics of a run
+    public static final class Result{
+        final long samples;
+        final long elapsedNanos;
+        final Sampling sampling;
+        final Statistics flux;
+        final Statistics transmission;
+
+        Result(long samples, long elapsedNanos, Sampling sampling, Statistics flux, Statistics transmission){
+            this.samples = samples;
+            this.elapsedNanos = elapsedNanos;
+            this.sampling = sampling;
+            this.flux = flux;
+            this.transmission = transmission;
+        }
+
+        public long samples(){
+            return samples;
+        }
+
+        public long elapsedNanos(){
+            return elapsedNanos;
+        }
+
+        public double samplesPerSecond(){
+            return elapsedNanos == 0 ? 0 : samples*1e9/elapsedNanos;
+        }
+
+        public Sampling sampling(){
+            return sampling;
+        }
+
+        //Uncollided flux at the detector (photons/cm^2/s)
+        public Statistics flux(){
+            return flux;
+        }
+
+        //Uncollided fraction of emitted photons leaving the stack
+        public Statistics transmission(){
+            return transmission;
+        }
+    }
+
+    //Runs on all available cores, tracking DEFAULT_PROBABILITIES
+    public static Result run(Model model, Sampling sampling, long samples, long seed){
+        return run(model, sampling, samples, Runtime.getRuntime().availableProcessors(), seed, DEFAULT_PROBABILITIES);
+    }
+
+    //Draws samples split over the given number of threads; results depend only on the seed and thread count
+    public static Result run(Model model, Sampling sampling, long samples, int threads, long seed,
+                             double[] probabilities){
+        if(samples < 1 || threads < 1){
+            throw new IllegalArgumentException("At least one sample and one thread are required.");
+        }
+        double[] tracked = probabilities.clone();
+        for(double p: tracked){
+            if(!(p > 0 && p < 1)){
+                throw new IllegalArgumentException("Quantile probability must be between 0 and 1.");
+            }
+        }
+        Plan plan = new Plan(model);
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try{
+            SplittableRandom master = new SplittableRandom(seed);
+            List<Future<Worker>> futures = new ArrayList<>();
+            for(int t = 0; t < threads; t++){
+                long share = samples/threads + (t < samples%threads ? 1 : 0);
+                Worker worker = new Worker(plan, sampling, master.split(), tracked);
+                futures.add(executor.submit(() -> worker.run(share)));
+            }
+            Statistics flux = new Statistics(tracked);
+            Statistics transmission = new Statistics(tracked);
+            for(Future<Worker> future: futures){
+                Worker worker = future.get();
+                flux.merge(worker.flux);
+                transmission.merge(worker.transmission);
+            }
+            return new Result(samples, System.nanoTime() - start, sampling, flux, transmission);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Uncertainty run interrupted.", e);
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    //Immutable, flattened form of a model shared by all workers
+    private static final class Plan{
+        final int lineCount;
+        final int layerCount;
+        final double[] lineRate;
+        final double totalRate;
+        final double spread;
+        //Per layer: nominal density and component mass attenuation [layer][component][line]
+        final double[] density;
+        final double[][][] muOverP;
+        //Parameter layout: 0 = strength, 1 + i = thickness, 1 + L + i = density factor,
+        //1 + 2L + 4m + c = factor c (components, then total) of distinct material m
+        final int[] materialSlot;
+        final Distribution[] distribution;
+        final double[] nominal;
+        //Indices of the parameters that are sampled
+        final int[] sampled;
+
+        Plan(Model model){
+            PhotonSource source = model.source;
+            lineCount = source.lineCount();
+            layerCount = model.layers.length;
+            lineRate = new double[lineCount];
+            for(int k = 0; k < lineCount; k++){
+                lineRate[k] = source.photonRate(k);
+            }
+            totalRate = source.totalPhotonRate();
+            spread = ShieldingCalculator.computeFlux(1, model.distance, 1);
+
+            density = new double[layerCount];
+            muOverP = new double[layerCount][COMPONENTS][lineCount];
+            materialSlot = new int[layerCount];
+            IdentityHashMap<Material, Integer> slots = new IdentityHashMap<>();
+            List<Material> materials = new ArrayList<>();
+            for(int i = 0; i < layerCount; i++){
+                Material mat = model.layers[i].material;
+                AttenuationTable table = AttenuationTable.of(mat);
+                density[i] = mat.density;
+                for(int k = 0; k < lineCount; k++){
+                    double E = source.energy(k);
+                    int s = table.segmentOf(E);
+                    if(s == -1) throw table.outOfBounds(E);
+                    //Total-only materials carry their total in the first component
+                    for(int c = 0; c < table.componentCount(); c++){
+                        muOverP[i][c][k] = table.componentMuOverP(E, s, c);
+                    }
+                }
+                Integer slot = slots.get(mat);
+                if(slot == null){
+                    slot = materials.size();
+                    slots.put(mat, slot);
+                    materials.add(mat);
+                }
+                materialSlot[i] = slot;
+            }
+
+            int parameters = 1 + 2*layerCount + MATERIAL_FACTORS*materials.size();
+            distribution = new Distribution[parameters];
+            distribution[0] = model.sourceStrength;
+            for(int i = 0; i < layerCount; i++){
+                distribution[1 + i] = model.thickness[i];
+                distribution[1 + layerCount + i] = model.density[i];
+            }
+            for(int m = 0; m < materials.size(); m++){
+                Distribution[] factors = model.factors.get(materials.get(m));
+                for(int c = 0; c < MATERIAL_FACTORS; c++){
+                    distribution[1 + 2*layerCount + MATERIAL_FACTORS*m + c] = factors == null ? fixed(1) : factors[c];
+                }
+            }
+            nominal = new double[parameters];
+            int count = 0;
+            int[] indices = new int[parameters];
+            for(int p = 0; p < parameters; p++){
+                if(distribution[p] instanceof Fixed){
+                    nominal[p] = ((Fixed) distribution[p]).value;
+                }else{
+                    indices[count++] = p;
+                }
+            }
+            sampled = Arrays.copyOf(indices, count);
+        }
+    }
+
+    //One thread's random stream, buffers and statistics
+    private static final class Worker{
+        final Plan plan;
+        final Sampling sampling;
+        final SplittableRandom random;
+        final Statistics flux;
+        final Statistics transmission;
+        final double[] value;
+        final double[] tau;
+        //Per sampled parameter: stratum of each sample in the current Latin hypercube block
+        final int[][] strata;
+
+        Worker(Plan plan, Sampling sampling, SplittableRandom random, double[] probabilities){
+            this.plan = plan;
+            this.sampling = sampling;
+            this.random = random;
+            this.flux = new Statistics(probabilities);
+            this.transmission = new Statistics(probabilities);
+            this.value = plan.nominal.clone();
+            this.tau = new double[plan.lineCount];
+            this.strata = sampling == Sampling.LATIN_HYPERCUBE ? new int[plan.sampled.length][LHS_BLOCK] : null;
+        }
+
+        Worker run(long samples){
+            int[] sampled = plan.sampled;
+            Distribution[] distribution = plan.distribution;
+            for(long done = 0; done < samples; ){
+                int block = (int) Math.min(LHS_BLOCK, samples - done);
+                if(strata != null) shuffleStrata(block);
+                for(int s = 0; s < block; s++){
+                    for(int j = 0; j < sampled.length; j++){
+                        double u = strata == null ? uniform() : (strata[j][s] + uniform())/block;
+                        value[sampled[j]] = distribution[sampled[j]].quantile(u);
+                    }
+                    evaluate();
+                }
+                done += block;
+            }
+            return this;
+        }
+
+        //Fresh random permutation of 0..block-1 per sampled parameter
+        private void shuffleStrata(int block){
+            for(int[] order: strata){
+                for(int s = 0; s < block; s++){
+                    order[s] = s;
+                }
+                for(int s = block - 1; s > 0; s--){
+                    int r = random.nextInt(s + 1);
+                    int swap = order[s];
+                    order[s] = order[r];
+                    order[r] = swap;
+                }
+            }
+        }
+
+        //Uniform on the open interval (0, 1), so unbounded inverse CDFs stay finite
+        private double uniform(){
+            return ((random.nextLong() >>> 11) + 0.5)*0x1.0p-53;
+        }
+
+        private void evaluate(){
+            Plan plan = this.plan;
+            int layers = plan.layerCount;
+            Arrays.fill(tau, 0);
+            for(int i = 0; i < layers; i++){
+                int f = 1 + 2*layers + MATERIAL_FACTORS*plan.materialSlot[i];
+                double areal = Math.max(0, value[1 + i])*plan.density[i]*Math.max(0, value[1 + layers + i])
+                        *Math.max(0, value[f + COMPONENTS]);
+                double photo = areal*Math.max(0, value[f]);
+                double compton = areal*Math.max(0, value[f + 1]);
+                double pair = areal*Math.max(0, value[f + 2]);
+                double[][] mu = plan.muOverP[i];
+                for(int k = 0; k < tau.length; k++){
+                    tau[k] += photo*mu[0][k] + compton*mu[1][k] + pair*mu[2][k];
+                }
+            }
+            double transmitted = 0;
+            for(int k = 0; k < tau.length; k++){
+                transmitted += plan.lineRate[k]*Math.exp(-tau[k]);
+            }
+            transmission.add(plan.totalRate == 0 ? 0 : transmitted/plan.totalRate);
+            flux.add(Math.max(0, value[0])*transmitted*plan.spread);
+        }
+    }
+
+    //Inverse standard normal CDF (Acklam's rational approximation, relative error below 1.2e-9)
+    static double standardNormalQuantile(double u){
+        if(u <= 0) return Double.NEGATIVE_INFINITY;
+        if(u >= 1) return Double.POSITIVE_INFINITY;
+        if(u < 0.02425){
+            double q = Math.sqrt(-2*Math.log(u));
+            return (((((-7.784894002430293e-03*q - 3.223964580411365e-01)*q - 2.400758277161838e+00)*q
+                    - 2.549732539343734e+00)*q + 4.374664141464968e+00)*q + 2.938163982698783e+00)
+                    /((((7.784695709041462e-03*q + 3.224671290700398e-01)*q + 2.445134137142996e+00)*q
+                    + 3.754408661907416e+00)*q + 1);
+        }
+        if(u > 1 - 0.02425){
+            double q = Math.sqrt(-2*Math.log(1 - u));
+            return -(((((-7.784894002430293e-03*q - 3.223964580411365e-01)*q - 2.400758277161838e+00)*q
+                    - 2.549732539343734e+00)*q + 4.374664141464968e+00)*q + 2.938163982698783e+00)
+                    /((((7.784695709041462e-03*q + 3.224671290700398e-01)*q + 2.445134137142996e+00)*q
+                    + 3.754408661907416e+00)*q + 1);
+        }
+        double q = u - 0.5;
+        double r = q*q;
+        return (((((-3.969683028665376e+01*r + 2.209460984245205e+02)*r - 2.759285104469687e+02)*r
+                + 1.383577518672690e+02)*r - 3.066479806614716e+01)*r + 2.506628277459239e+00)*q
+                /(((((-5.447609879822406e+01*r + 1.615858368580409e+02)*r - 1.556989798598866e+02)*r
+                + 6.680131329017055e+01)*r - 1.328068155280730e+01)*r + 1);
+    }
+}
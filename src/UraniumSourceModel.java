@@ -1,3 +1,5 @@
+import java.util.*;
+
 /**
  * UraniumSourceModel.java
  *
@@ -7,9 +9,66 @@
  * Assumes secular equilibrium up to Pa-234m
  */
 public class UraniumSourceModel{
-    //Analyzes photon emission from a DU slab of given thickness and material.
-    public static void analyzeDU(double thickness, Material mat){
 
+    //Gamma emission lines for U-238 (energy in kev, intensity fraction)
+    static final double[][] U238_LINES = {{63.28, 0.041},
+            {92.37, 0.0242},
+            {92.79, 0.0239},
+            {112.81, 0.0024},
+            {258.19, 0.000754},
+            {742.81, 0.00096},
+            {766.37, 0.00316},
+            {1001.0, 0.00839}};
+
+    //Shared U-238 line source; per-material mu values are cached on it
+    private static final PhotonSource U238 = buildU238Source();
+
+    //Result of a DU slab analysis. Per-line arrays follow the U-238 line order.
+    public static final class Result{
+        //Activity per volume (Bq/cm^3)
+        final double activityPerVolume;
+        //Source with the per-volume activity
+        final PhotonSource source;
+        //Volumetric source strength per line (photons/s/cm^3)
+        final double[] sVol;
+        //Self-attenuated photon output per line (photons/s/cm^2)
+        final double[] rOut;
+
+        Result(double activityPerVolume, PhotonSource source, double[] sVol, double[] rOut){
+            this.activityPerVolume = activityPerVolume;
+            this.source = source;
+            this.sVol = sVol;
+            this.rOut = rOut;
+        }
+
+        public int lineCount(){
+            return sVol.length;
+        }
+
+        public double energy(int line){
+            return source.energy(line);
+        }
+
+        public double sVol(int line){
+            return sVol[line];
+        }
+
+        public double rOut(int line){
+            return rOut[line];
+        }
+
+        //Total self-attenuated photon output over all lines (photons/s/cm^2)
+        public double totalROut(){
+            double total = 0;
+            for(double r: rOut){
+                total += r;
+            }
+            return total;
+        }
+    }
+
+    //Activity per gram of U-238 (Bq/g)
+    public static double specificActivity(){
         //U-238 half-life in seconds
         double tHalf = 4.468e9 * 365.25 * 24 * 3600;
 
@@ -19,41 +78,59 @@ public class UraniumSourceModel{
         //Atoms per gram of U-238
         double atomsPerGram = (6.022e23/238);
 
+        return atomsPerGram * lambda;
+    }
+
+    //Returns the U-238 line source (energies in MeV) with the given activity in Bq
+    public static PhotonSource createU238Source(double activityBq){
+        return U238.withActivity(activityBq);
+    }
+
+    //Analyzes photon emission from a DU slab of given thickness and material.
+    public static Result analyzeDU(double thickness, Material mat){
+
         //Activity per gram (Bq/g)
-        double A = atomsPerGram * lambda;
+        double A = specificActivity();
         //Activity per volume (Bq/cm^3)
-        double Avol = A * 19;
-
-        //Gamma emission lines for U-238 (energy in kev, intensity fraction)
-        double [][] lines={{63.28, 0.041},
-                {92.37, 0.0242},
-                {92.79, 0.0239},
-                {112.81, 0.0024},
-                {258.19, 0.000754},
-                {742.81, 0.00096},
-                {766.37, 0.00316},
-                {1001.0, 0.00839}};
+        double Avol = A * mat.density;
 
         //Compute source strength for each gamma line
-        for(double[] line: lines){
-            double E_keV = line[0];
-            double Ig = line[1];
-            double Svol = Avol*Ig;
+        PhotonSource source = createU238Source(Avol);
+        double[] mu = source.mu(mat);
+        double[] sVol = new double[source.lineCount()];
+        double[] rOut = new double[source.lineCount()];
 
-            // System.out.printf("%.2f\t\t%.5f\t%.3e\n", E_keV, Ig, Svol);
+        //Compute photon output through material
+        for(int i = 0; i < sVol.length; i++){
+            sVol[i] = source.photonRate(i);
+            rOut[i] = sVol[i]*(1-Math.exp(-mu[i]*thickness))/mu[i];
         }
 
-        //Compute photon output through material
-        for(double[] line: lines){
-            double E_keV = line[0];
-            double E_MeV = E_keV/1000;
-            double Ig = line[1];
+        //Note: These values assume secular equilibrium up to Pa-234m.
+        return new Result(Avol, source, sVol, rOut);
+    }
+
+    //Returns the U-238 line source with the activity per volume (Bq/cm^3) of the given DU material
+    public static PhotonSource createVolumetricSource(Material mat){
+        return createU238Source(specificActivity()*mat.density);
+    }
 
-            double Svol = Avol*Ig;
-            double mu = Physics.getMu(E_MeV, mat);
-            double Rout = Svol*(1-Math.exp(-mu*thickness))/mu;
-           }
+    //Integrates the flux at a detector from the DU layer layers[duLayer], including self-shielding
+    //and attenuation through every layer after it. distance (cm) is measured from the detector-side
+    //face of the DU layer; radius (cm) is the DU disc radius (Double.POSITIVE_INFINITY for an infinite slab).
+    public static SlabSourceIntegrator.Result computeSlabFlux(ArrayList<Layer> layers, int duLayer, double distance,
+                                                             double radius, double tolerance){
+        PhotonSource source = createVolumetricSource(layers.get(duLayer).material);
+        return SlabSourceIntegrator.integrate(source, layers, duLayer, distance, radius, tolerance);
+    }
 
-        //Note: These values assume secular equilibrium up to Pa-234m.
+    private static PhotonSource buildU238Source(){
+        double[] energies = new double[U238_LINES.length];
+        double[] intensities = new double[U238_LINES.length];
+        for(int i = 0; i < U238_LINES.length; i++){
+            energies[i] = U238_LINES[i][0]/1000;
+            intensities[i] = U238_LINES[i][1];
+        }
+        return new PhotonSource("U-238", 0, energies, intensities);
     }
-}
\ No newline at end of file
+}